@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+
+import miner.ActivityIdentifier;
+import model.ColumnarLog;
+import model.git.GITLog;
+import reader.MappedGITLogReader;
+
+/**
+ * Input of the benchmarks
+ * The locations can be changed with system properties, they are passed on to the forked benchmark JVMs:
+ * -Dbenchmark.regex (default: RegularExpressions.csv) and -Dbenchmark.log (default: src/data/logs/jekyll.log),
+ * both relative to the directory the benchmarks are started in.
+ * @author Paul Kneringer
+ */
+public final class BenchmarkData {
+	public static final String REGEX_LOCATION = System.getProperty("benchmark.regex", "RegularExpressions.csv");
+	public static final String LOG_LOCATION = System.getProperty("benchmark.log", "src/data/logs/jekyll.log");
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Reads and enriches the sample log
+	 */
+	public static ColumnarLog enrichedLog() throws IOException {
+		return enrichedLog(LOG_LOCATION);
+	}
+
+	/**
+	 * Reads and enriches the sample log or a synthetic log
+	 * @param source: "sample" or the number of commits of a synthetic log
+	 */
+	public static ColumnarLog enrichedSource(String source) throws IOException {
+		if (source.equals("sample"))
+			return enrichedLog();
+		File file = syntheticLog(Integer.parseInt(source));
+		try {
+			return enrichedLog(file.getPath());
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static ColumnarLog enrichedLog(String path) throws IOException {
+		try (MappedGITLogReader lr = new MappedGITLogReader(path)) {
+			ActivityIdentifier AI = new ActivityIdentifier(REGEX_LOCATION);
+			return ColumnarLog.of(AI.enrichLog(new GITLog(lr.readAll())));
+		}
+	}
+
+	/**
+	 * Writes a synthetic log with the default settings of the SyntheticLogGenerator
+	 * @param commits: Number of commits of the log
+	 * @return the temporary file, deleted when the JVM exits
+	 */
+	public static File syntheticLog(int commits) throws IOException {
+		File file = File.createTempFile("benchmark-" + commits + "-", ".log");
+		file.deleteOnExit();
+		new SyntheticLogGenerator().setCommits(commits).setRegexLocation(REGEX_LOCATION).write(file);
+		return file;
+	}
+}
@@ -0,0 +1,32 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, the allocation rate (gc.alloc.rate, MB/s) and the allocation per
+ * operation (gc.alloc.rate.norm, bytes) are reported next to the throughput or time of every benchmark.
+ * The benchmarks are a separate source folder (bench) that is compiled together with src and requires jmh-core and
+ * jmh-generator-annprocess (with jopt-simple and commons-math3) on the classpath, the annotation processor
+ * generates the benchmark classes. The application itself does not depend on JMH.
+ *
+ * Usage (in the project directory): java benchmark.BenchmarkRunner [regex of benchmarks, e.g. Gini or Reader]
+ * @author Paul Kneringer
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		OptionsBuilder options = new OptionsBuilder();
+		if (args.length == 0) {
+			options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		} else {
+			for (String include : args) {
+				options.include(include);
+			}
+		}
+		Options opt = options.addProfiler(GCProfiler.class).build();
+		new Runner(opt).run();
+	}
+}
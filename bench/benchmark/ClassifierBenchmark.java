@@ -0,0 +1,88 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import miner.ActivityClassifier;
+import miner.ActivityIdentifier;
+import model.Change;
+import model.ChangeTemplate;
+import model.ColumnarLog;
+import model.EnrichedChange;
+import reader.CSVReader;
+
+/**
+ * Identification of activity labels with the shipped RegularExpressions.csv
+ * The paths are the file changes of the sample log in the order of the log. With the default cache most paths are
+ * only classified once, with a cache size of 0 every change is matched against the expressions.
+ * @author Paul Kneringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifierBenchmark {
+	private ActivityClassifier classifier;
+	private ChangeTemplate[] changes;
+	private int next;
+
+	/**
+	 * ActivityIdentifier with a label cache, only the identifyActivityLabel benchmark depends on it
+	 */
+	@State(Scope.Benchmark)
+	public static class Identifier {
+		@Param({ "131072", "0" })
+		public int cacheSize;
+
+		private ActivityIdentifier AI;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			AI = new ActivityIdentifier(BenchmarkData.REGEX_LOCATION, cacheSize);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		classifier = new ActivityClassifier(new CSVReader().readFile(BenchmarkData.REGEX_LOCATION));
+		ColumnarLog log = BenchmarkData.enrichedLog();
+		List<ChangeTemplate> list = new ArrayList<ChangeTemplate>();
+		for (int c = 0; c < log.getChangeCount(); c++) {
+			list.add(new Change(log.getActions().get(log.getActionId(c)), log.getPaths().get(log.getPathId(c))));
+		}
+		changes = list.toArray(new ChangeTemplate[list.size()]);
+	}
+
+	private ChangeTemplate nextChange() {
+		if (next == changes.length)
+			next = 0;
+		return changes[next++];
+	}
+
+	@Benchmark
+	public EnrichedChange identifyActivityLabel(Identifier identifier) {
+		return identifier.AI.identifyActivityLabel(nextChange());
+	}
+
+	@Benchmark
+	public String classify() {
+		return classifier.classify(nextChange().getPath());
+	}
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import metrics.ActivityCube;
+import model.ColumnarLog;
+
+/**
+ * Curve building of GUIController.transformLog on the sample log and on synthetic logs
+ * cube measures building the activity cube (once per loaded log), curves measures the curves of one view
+ * (granularity and level) from an existing cube, like transformLog does when a view is displayed the first time.
+ * @author Paul Kneringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurveBenchmark {
+	//"sample" or the number of commits of a synthetic log
+	@Param({ "sample", "100000", "1000000" })
+	public String source;
+
+	private ColumnarLog log;
+	private ActivityCube cube;
+
+	/**
+	 * View of the charts, only the curves benchmark depends on it
+	 */
+	@State(Scope.Benchmark)
+	public static class View {
+		//0: days, 1: weeks, 2: months, 3: percentages (logging)
+		@Param({ "0", "1", "2", "3" })
+		public int selection;
+
+		@Param({ "false", "true" })
+		public boolean fileLevel;
+
+		private int[] units;
+
+		@Setup(Level.Trial)
+		public void setup(CurveBenchmark b) {
+			switch (selection) {
+			case 1:
+				units = b.cube.getWeekBuckets();
+				break;
+			case 2:
+				units = b.cube.getMonthBuckets();
+				break;
+			case 3:
+				units = b.cube.getPercentBuckets(100);
+				break;
+			default:
+				units = b.cube.getDayBuckets();
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		log = BenchmarkData.enrichedSource(source);
+		cube = new ActivityCube(log);
+	}
+
+	@Benchmark
+	public ActivityCube cube() {
+		return new ActivityCube(log);
+	}
+
+	@Benchmark
+	public HashMap<String, HashMap<Integer, Integer>> curves(View view) {
+		return cube.curves(view.fileLevel, view.units);
+	}
+}
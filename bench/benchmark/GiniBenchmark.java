@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import metrics.Gini;
+
+/**
+ * Gini coefficient of 10 values (activity types) to 100k values (authors of a large ecosystem)
+ * The values are skewed like workloads: few large values, many small ones and some zeros.
+ * Gini.compute sorts the array in place, every operation therefore includes copying the unsorted values.
+ * @author Paul Kneringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GiniBenchmark {
+	@Param({ "10", "1000", "100000" })
+	public int size;
+
+	private int[] ints;
+	private double[] doubles;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		ints = new int[size];
+		doubles = new double[size];
+		for (int i = 0; i < size; i++) {
+			ints[i] = 1000 / (1 + random.nextInt(size)) * random.nextInt(2);
+			doubles[i] = ints[i] / 1000.0;
+		}
+	}
+
+	@Benchmark
+	public double computeInt() {
+		return Gini.compute(ints.clone(), false);
+	}
+
+	@Benchmark
+	public double computeIntZeros() {
+		return Gini.compute(ints.clone(), true);
+	}
+
+	@Benchmark
+	public double computeDouble() {
+		return Gini.compute(doubles.clone(), false);
+	}
+}
@@ -0,0 +1,150 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import metrics.Metrics;
+import metrics.WorkloadMatrix;
+import model.ColumnarLog;
+
+/**
+ * KPIs of Vasilescu et al. on the sample log and on synthetic logs
+ * matrix and getATW build the author x type workload matrix from the log, the KPI benchmarks are read from a matrix
+ * that was built in the setup (like the GUI does after loading a log), the ...ATW benchmarks use the map based
+ * methods of Metrics.
+ * @author Paul Kneringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+	@Param({ "code" })
+	public String type;
+
+	//"sample" or the number of commits of a synthetic log
+	@Param({ "sample", "100000", "1000000" })
+	public String source;
+
+	private ColumnarLog log;
+	private Metrics m;
+	private HashMap<String, HashMap<String, Integer>> ATW;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		log = BenchmarkData.enrichedSource(source);
+		m = new Metrics(log);
+		ATW = m.getATW();
+	}
+
+	@Benchmark
+	public WorkloadMatrix matrix() {
+		return WorkloadMatrix.of(log);
+	}
+
+	@Benchmark
+	public HashMap<String, HashMap<String, Integer>> getATW() {
+		return new Metrics(log).getATW();
+	}
+
+	@Benchmark
+	public int PW() {
+		return m.PW();
+	}
+
+	@Benchmark
+	public int PTW() {
+		return m.PTW(type);
+	}
+
+	@Benchmark
+	public double RPTW() {
+		return m.RPTW(type);
+	}
+
+	@Benchmark
+	public int PTI() {
+		return m.PTI(type);
+	}
+
+	@Benchmark
+	public double RPTI() {
+		return m.RPTI(type);
+	}
+
+	@Benchmark
+	public int NTP() {
+		return m.NTP();
+	}
+
+	@Benchmark
+	public int NAP() {
+		return m.NAP();
+	}
+
+	@Benchmark
+	public double PWS() {
+		return m.PWS();
+	}
+
+	@Benchmark
+	public double RPWS() {
+		return m.RPWS();
+	}
+
+	@Benchmark
+	public double PIS() {
+		return m.PIS();
+	}
+
+	@Benchmark
+	public double RPIS() {
+		return m.RPIS();
+	}
+
+	@Benchmark
+	public int PWATW() {
+		return m.PW(ATW);
+	}
+
+	@Benchmark
+	public int PTWATW() {
+		return m.PTW(type, ATW);
+	}
+
+	@Benchmark
+	public double PWSATW() {
+		return m.PWS(ATW);
+	}
+
+	@Benchmark
+	public double RPWSATW() {
+		return m.RPWS(ATW);
+	}
+
+	@Benchmark
+	public double PISATW() {
+		return m.PIS(ATW);
+	}
+
+	@Benchmark
+	public double RPISATW() {
+		return m.RPIS(ATW);
+	}
+}
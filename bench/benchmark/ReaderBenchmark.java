@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.LogEntry;
+import reader.GITLogReader;
+import reader.MappedGITLogReader;
+import reader.ParallelGITLogReader;
+
+/**
+ * Reading of GIT log files with 10k, 100k and 1M commits
+ * One operation reads the whole file, the large files take seconds per operation, so every operation is measured
+ * on its own (single shot) instead of running the readers in a loop.
+ * GITLogReader.readAll prints every commit, its parsing is measured with readNext.
+ * @author Paul Kneringer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReaderBenchmark {
+	@Param({ "10000", "100000", "1000000" })
+	public int commits;
+
+	private File log;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		log = BenchmarkData.syntheticLog(commits);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		log.delete();
+	}
+
+	@Benchmark
+	public void gitReadNext(Blackhole bh) throws IOException {
+		try (GITLogReader lr = new GITLogReader(log.getPath())) {
+			LogEntry l;
+			while ((l = lr.readNext()) != null) {
+				bh.consume(l);
+			}
+		}
+	}
+
+	@Benchmark
+	public void mappedReadNext(Blackhole bh) throws IOException {
+		try (MappedGITLogReader lr = new MappedGITLogReader(log.getPath())) {
+			LogEntry l;
+			while ((l = lr.readNext()) != null) {
+				bh.consume(l);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<LogEntry> mappedReadAll() throws IOException {
+		try (MappedGITLogReader lr = new MappedGITLogReader(log.getPath())) {
+			return lr.readAll();
+		}
+	}
+
+	@Benchmark
+	public long parallelStream() throws IOException {
+		try (ParallelGITLogReader lr = new ParallelGITLogReader(log.getPath())) {
+			return lr.stream().count();
+		}
+	}
+}
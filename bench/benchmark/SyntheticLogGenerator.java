@@ -0,0 +1,366 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import miner.ActivityClassifier;
+import reader.CSVReader;
+
+/**
+ * Writes synthetic GIT logs in the format of git log --reverse --name-status
+ * The logs look like the logs of large repositories without containing real data:
+ * - the activity of the authors follows a Zipf distribution (few authors make most commits)
+ * - the paths are drawn from a vocabulary that is derived from the categories of the RegularExpressions.csv file,
+ * every author works mainly on the files of one category
+ * - a share of the commits are merges (without change list)
+ * - the commits are spread over a date span in chronological order
+ * The commits are written one after the other, the memory does not depend on the number of commits, only on the
+ * number of authors and the size of the path vocabulary. The same seed always creates the same log.
+ *
+ * Usage: java benchmark.SyntheticLogGenerator [options] output
+ * -commits n (default 100000), -authors n (default 500), -zipf s (default 1.0), -merges ratio (default 0.05),
+ * -from yyyy-mm-dd (default 2000-01-01), -to yyyy-mm-dd (default 2020-01-01), -files n (default 20000),
+ * -regex file (default RegularExpressions.csv), -seed n (default 42)
+ * @author Paul Kneringer
+ */
+public class SyntheticLogGenerator {
+	private static final DateTimeFormatter GIT_FMT = DateTimeFormat.forPattern("EEE MMM d HH:mm:ss yyyy Z")
+			.withLocale(Locale.ENGLISH).withZone(DateTimeZone.UTC);
+	private static final String[] WORDS = { "fix", "add", "update", "remove", "refactor", "support", "test", "docs",
+			"build", "release", "cleanup", "handle", "improve", "config", "typo", "merge" };
+	//Marks a ".*" of an expression that is replaced by directories and a file name
+	private static final char ANY = '\u0000';
+	//Probability that a change touches a file of the category of its author
+	private static final double SPECIALISATION = 0.7;
+	//Probability that an existing file is deleted instead of modified
+	private static final double DELETIONS = 0.02;
+
+	private int commits = 100000;
+	private int authors = 500;
+	private double zipf = 1.0;
+	private double mergeRatio = 0.05;
+	private LocalDate from = new LocalDate(2000, 1, 1);
+	private LocalDate to = new LocalDate(2020, 1, 1);
+	private int files = 20000;
+	private String regexLocation = "RegularExpressions.csv";
+	private long seed = 42;
+
+	/**
+	 * @param commits: Number of commits of the log
+	 */
+	public SyntheticLogGenerator setCommits(int commits) {
+		this.commits = commits;
+		return this;
+	}
+
+	/**
+	 * @param authors: Number of authors, author k makes commits with a probability proportional to 1 / k^zipf
+	 */
+	public SyntheticLogGenerator setAuthors(int authors) {
+		this.authors = authors;
+		return this;
+	}
+
+	/**
+	 * @param zipf: Exponent of the Zipf distribution of the authors, 0 for equally active authors
+	 */
+	public SyntheticLogGenerator setZipf(double zipf) {
+		this.zipf = zipf;
+		return this;
+	}
+
+	/**
+	 * @param mergeRatio: Share of the commits that are merges
+	 */
+	public SyntheticLogGenerator setMergeRatio(double mergeRatio) {
+		this.mergeRatio = mergeRatio;
+		return this;
+	}
+
+	/**
+	 * @param from: Day of the first commit
+	 * @param to: Day after the last commit
+	 */
+	public SyntheticLogGenerator setDateSpan(LocalDate from, LocalDate to) {
+		this.from = from;
+		this.to = to;
+		return this;
+	}
+
+	/**
+	 * @param files: Number of paths of the vocabulary
+	 */
+	public SyntheticLogGenerator setFiles(int files) {
+		this.files = files;
+		return this;
+	}
+
+	/**
+	 * @param regexLocation: Regular expressions the paths are derived from
+	 */
+	public SyntheticLogGenerator setRegexLocation(String regexLocation) {
+		this.regexLocation = regexLocation;
+		return this;
+	}
+
+	public SyntheticLogGenerator setSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Writes the log into a file
+	 */
+	public void write(File file) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Writes the log commit by commit
+	 * @param out: Writer the log is written to, it is not closed
+	 */
+	public void write(Writer out) throws IOException {
+		Random random = new Random(seed);
+		List<String[]> expressions = new CSVReader().readFile(regexLocation);
+		ActivityClassifier classifier = new ActivityClassifier(expressions);
+
+		//Vocabulary: paths grouped by category, every path is checked with the classifier
+		List<List<String>> templates = new ArrayList<List<String>>();
+		for (String[] line : expressions) {
+			List<String> samples = new ArrayList<String>();
+			for (int j = 1; j < line.length; j++) {
+				String sample = sample(line[j]);
+				if (sample != null)
+					samples.add(sample);
+			}
+			templates.add(samples);
+		}
+		String[] paths = new String[files];
+		int[] category = new int[files];
+		int size = 0;
+		for (int attempt = 0; size < files && attempt < files * 20; attempt++) {
+			int c = random.nextInt(templates.size());
+			List<String> samples = templates.get(c);
+			if (samples.isEmpty())
+				continue;
+			String path = instantiate(samples.get(random.nextInt(samples.size())), random);
+			if (classifier.classify(path).equals(expressions.get(c)[0])) {
+				paths[size] = path;
+				category[size++] = c;
+			}
+		}
+		if (size == 0)
+			throw new IOException("No paths can be derived from " + regexLocation);
+		int[][] byCategory = new int[templates.size()][];
+		for (int c = 0; c < byCategory.length; c++) {
+			int n = 0;
+			int[] ids = new int[size];
+			for (int p = 0; p < size; p++) {
+				if (category[p] == c)
+					ids[n++] = p;
+			}
+			byCategory[c] = Arrays.copyOf(ids, n);
+		}
+		boolean[] exists = new boolean[size];
+
+		//Zipf distribution of the authors as cumulative weights, every author has a category
+		double[] cumulative = new double[authors];
+		int[] home = new int[authors];
+		double sum = 0;
+		for (int a = 0; a < authors; a++) {
+			sum += 1 / Math.pow(a + 1, zipf);
+			cumulative[a] = sum;
+			home[a] = category[random.nextInt(size)];
+		}
+
+		long start = from.toDateTimeAtStartOfDay(DateTimeZone.UTC).getMillis();
+		long span = to.toDateTimeAtStartOfDay(DateTimeZone.UTC).getMillis() - start;
+		String previous = hash(random);
+		for (int i = 0; i < commits; i++) {
+			int a = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+			a = a < 0 ? -a - 1 : a;
+			a = Math.min(a, authors - 1);
+			//Every commit gets its own slot of the span, so the commits are in chronological order
+			long time = start + (long) (span * ((i + random.nextDouble()) / commits));
+			String commit = hash(random);
+			boolean merge = i > 0 && random.nextDouble() < mergeRatio;
+
+			out.write("commit " + commit + "\n");
+			if (merge)
+				out.write("Merge: " + previous.substring(0, 8) + " " + hash(random).substring(0, 8) + "\n");
+			out.write("Author: Author " + a + " <author" + a + "@example.com>\n");
+			out.write("Date:   " + GIT_FMT.print(new DateTime(time, DateTimeZone.UTC)) + "\n\n");
+			if (merge) {
+				out.write("    Merge branch 'topic-" + i + "'\n\n");
+			} else {
+				out.write("    " + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " ("
+						+ i + ")\n\n");
+				//Number of changes: geometric with a mean of about 3
+				int changes = 1;
+				while (changes < 50 && random.nextDouble() < 0.66)
+					changes++;
+				for (int c = 0; c < changes; c++) {
+					int[] ids = byCategory[home[a]];
+					int p = ids.length > 0 && random.nextDouble() < SPECIALISATION ? ids[random.nextInt(ids.length)]
+							: random.nextInt(size);
+					String action;
+					if (!exists[p]) {
+						action = "A";
+						exists[p] = true;
+					} else if (random.nextDouble() < DELETIONS) {
+						action = "D";
+						exists[p] = false;
+					} else {
+						action = "M";
+					}
+					out.write(action + "\t" + paths[p] + "\n");
+				}
+				out.write("\n");
+			}
+			previous = commit;
+		}
+	}
+
+	private static String hash(Random random) {
+		return String.format("%016x%016x%08x", random.nextLong(), random.nextLong(), random.nextInt());
+	}
+
+	/**
+	 * Replaces the ".*" of a sample by directories and a file name
+	 */
+	private static String instantiate(String sample, Random random) {
+		StringBuilder path = new StringBuilder();
+		for (int i = 0; i < sample.length(); i++) {
+			char c = sample.charAt(i);
+			if (c != ANY) {
+				path.append(c);
+			} else if (i == 0) {
+				int depth = random.nextInt(4);
+				for (int d = 0; d < depth; d++) {
+					path.append("dir").append(random.nextInt(30)).append('/');
+				}
+				path.append("file").append(random.nextInt(1000));
+			} else {
+				path.append("part").append(random.nextInt(1000));
+			}
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Shortest string that matches a regular expression of the csv file, ".*" on the top level is marked with ANY
+	 * Optional parts are left out, of alternatives the first one is taken.
+	 * @return the sample, null if the expression contains constructs that are not supported
+	 */
+	static String sample(String regex) {
+		int[] pos = { 0 };
+		String sample = sequence(regex, pos, true);
+		if (sample == null || pos[0] != regex.length() || sample.isEmpty() || sample.indexOf('\\') >= 0)
+			return null;
+		return sample;
+	}
+
+	private static String sequence(String regex, int[] pos, boolean top) {
+		StringBuilder ret = new StringBuilder();
+		while (pos[0] < regex.length() && regex.charAt(pos[0]) != ')' && regex.charAt(pos[0]) != '|') {
+			char c = regex.charAt(pos[0]);
+			String atom;
+			if (c == '.' && pos[0] + 1 < regex.length() && regex.charAt(pos[0] + 1) == '*') {
+				pos[0] += 2;
+				if (top)
+					ret.append(ANY);
+				continue;
+			} else if (c == '\\') {
+				if (pos[0] + 1 == regex.length())
+					return null;
+				atom = String.valueOf(regex.charAt(pos[0] + 1));
+				pos[0] += 2;
+			} else if (c == '(') {
+				pos[0]++;
+				atom = sequence(regex, pos, false);
+				while (atom != null && pos[0] < regex.length() && regex.charAt(pos[0]) == '|') {
+					pos[0]++;
+					if (sequence(regex, pos, false) == null)
+						return null;
+				}
+				if (atom == null || pos[0] == regex.length())
+					return null;
+				pos[0]++;
+			} else if ("[]{}+^$".indexOf(c) >= 0) {
+				return null;
+			} else {
+				atom = String.valueOf(c);
+				pos[0]++;
+			}
+			if (pos[0] < regex.length() && (regex.charAt(pos[0]) == '?' || regex.charAt(pos[0]) == '*')) {
+				pos[0]++;
+				atom = "";
+			}
+			ret.append(atom);
+		}
+		return ret.toString();
+	}
+
+	public static void main(String[] args) throws IOException {
+		SyntheticLogGenerator generator = new SyntheticLogGenerator();
+		String output = null;
+		LocalDate from = generator.from;
+		LocalDate to = generator.to;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-commits":
+				generator.setCommits(Integer.parseInt(args[++i]));
+				break;
+			case "-authors":
+				generator.setAuthors(Integer.parseInt(args[++i]));
+				break;
+			case "-zipf":
+				generator.setZipf(Double.parseDouble(args[++i]));
+				break;
+			case "-merges":
+				generator.setMergeRatio(Double.parseDouble(args[++i]));
+				break;
+			case "-from":
+				from = LocalDate.parse(args[++i]);
+				break;
+			case "-to":
+				to = LocalDate.parse(args[++i]);
+				break;
+			case "-files":
+				generator.setFiles(Integer.parseInt(args[++i]));
+				break;
+			case "-regex":
+				generator.setRegexLocation(args[++i]);
+				break;
+			case "-seed":
+				generator.setSeed(Long.parseLong(args[++i]));
+				break;
+			default:
+				output = args[i];
+			}
+		}
+		if (output == null) {
+			System.err.println("Usage: java benchmark.SyntheticLogGenerator [-commits n] [-authors n] [-zipf s] "
+					+ "[-merges ratio] [-from yyyy-mm-dd] [-to yyyy-mm-dd] [-files n] [-regex file] [-seed n] output");
+			System.exit(1);
+		}
+		generator.setDateSpan(from, to).write(new File(output));
+	}
+}
@@ -0,0 +1,372 @@
+package GUI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import model.graph.ChartNode;
+import model.graph.DrillDown;
+
+/**
+ * Draws the activity series of all types onto one Canvas instead of one Area- or LineChart per type
+ * Every type is drawn in its own band, one below the other. The values are aggregated per pixel column
+ * (minimum and maximum of the units in the column), so drawing costs O(visible units + width) per series
+ * and no node is created per data point.
+ * Mouse: hovering shows the value of the unit below the cursor, a click displays its commits or file changes
+ * (see ChartNode.showDetails), dragging with the primary button zooms into the selected units and any other
+ * button resets the zoom.
+ * @author Paul Kneringer
+ */
+public class ActivityCanvas extends Pane {
+	private static final double LEFT = 55;
+	private static final double RIGHT = 15;
+	private static final double TOP = 22;
+	private static final double BOTTOM = 30;
+	//Minimum distance between two ticks of the x axis in pixels
+	private static final double TICK_SPACING = 70;
+	private static final Color LINE = Color.rgb(243, 98, 45);
+	private static final Color FILL = Color.rgb(243, 98, 45, 0.35);
+	private static final Font TITLE_FONT = new Font(14);
+	private static final Font AXIS_FONT = new Font(10);
+
+	private Canvas canvas = new Canvas();
+	private List<String> types = new ArrayList<String>();
+	private List<int[]> series = new ArrayList<int[]>();
+	private DrillDown drillDown;
+	private boolean fileLevel;
+	private boolean area;
+	private boolean showZero;
+	private String unitLabel;
+
+	//Full and displayed range of the x axis (units)
+	private double minUnit = 0;
+	private double maxUnit = 1;
+	private double lower = 0;
+	private double upper = 1;
+
+	//Data point below the cursor, -1 if there is none
+	private int hoverSeries = -1;
+	private int hoverUnit = -1;
+	//Per series and pixel column: x position, minimum and maximum of the units in the column (see aggregate)
+	private double[][] columnX;
+	private double[][] columnMin;
+	private double[][] columnMax;
+	private int[] columnCount;
+	private int[] maxValues;
+	private double aggregatedLower;
+	private double aggregatedUpper;
+	private double aggregatedWidth;
+	//Start and end of a zoom selection in pixels, -1 if there is none
+	private double dragStart = -1;
+	private double dragEnd = -1;
+
+	/**
+	 * @param drillDown: Resolves the commits or file changes of a clicked data point
+	 * @param fileLevel: true if the series contain file changes, false if they contain commits
+	 * @param area: true: area chart, false: line chart
+	 * @param showZero: true if units without changes are drawn as zero values, otherwise they are skipped
+	 * @param unitLabel: Label of the x axis (Days, Weeks, Months, % of time)
+	 */
+	public ActivityCanvas(DrillDown drillDown, boolean fileLevel, boolean area, boolean showZero, String unitLabel) {
+		this.drillDown = drillDown;
+		this.fileLevel = fileLevel;
+		this.area = area;
+		this.showZero = showZero;
+		this.unitLabel = unitLabel;
+		getChildren().add(canvas);
+		canvas.setOnMouseMoved(this::hover);
+		canvas.setOnMouseExited(event -> {
+			hoverSeries = -1;
+			draw();
+		});
+		canvas.setOnMousePressed(this::pressed);
+		canvas.setOnMouseDragged(event -> {
+			if (dragStart >= 0) {
+				dragEnd = event.getX();
+				draw();
+			}
+		});
+		canvas.setOnMouseReleased(this::released);
+	}
+
+	/**
+	 * Adds the band of one activity type
+	 * @param type: Activity type, title of the band
+	 * @param values: Value per unit
+	 */
+	public void addSeries(String type, int[] values) {
+		types.add(type);
+		series.add(values);
+		draw();
+	}
+
+	/**
+	 * Sets the full range of the x axis, the zoom is reset
+	 * @param from: First unit
+	 * @param to: Last unit
+	 */
+	public void setRange(double from, double to) {
+		minUnit = from;
+		maxUnit = Math.max(to, from + 1);
+		lower = minUnit;
+		upper = maxUnit;
+		draw();
+	}
+
+	@Override
+	protected void layoutChildren() {
+		canvas.setWidth(getWidth());
+		canvas.setHeight(getHeight());
+		draw();
+	}
+
+	private double bandHeight() {
+		return types.isEmpty() ? canvas.getHeight() : canvas.getHeight() / types.size();
+	}
+
+	private double plotWidth() {
+		return Math.max(1, canvas.getWidth() - LEFT - RIGHT);
+	}
+
+	private double toX(double unit) {
+		return LEFT + (unit - lower) / (upper - lower) * plotWidth();
+	}
+
+	private double toUnit(double x) {
+		return lower + (x - LEFT) / plotWidth() * (upper - lower);
+	}
+
+	/**
+	 * Draws all bands, the hovered data point and the zoom selection
+	 */
+	private void draw() {
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		double width = canvas.getWidth();
+		double height = canvas.getHeight();
+		gc.clearRect(0, 0, width, height);
+		if (width <= LEFT + RIGHT || types.isEmpty())
+			return;
+		double band = bandHeight();
+		aggregate();
+		for (int s = 0; s < types.size(); s++) {
+			double top = s * band + TOP;
+			double bottom = (s + 1) * band - BOTTOM;
+			if (bottom <= top)
+				continue;
+			int[] values = series.get(s);
+			double[] xs = columnX[s];
+			double[] min = columnMin[s];
+			double[] max = columnMax[s];
+			int used = columnCount[s];
+			int maxValue = maxValues[s];
+			drawAxes(gc, s, top, bottom, maxValue);
+			double scale = (bottom - top) / maxValue;
+			gc.save();
+			gc.beginPath();
+			gc.rect(LEFT, top - 1, plotWidth(), bottom - top + 2);
+			gc.clip();
+			if (area && used > 0) {
+				gc.setFill(FILL);
+				gc.beginPath();
+				gc.moveTo(xs[0], bottom);
+				for (int i = 0; i < used; i++) {
+					gc.lineTo(xs[i], bottom - max[i] * scale);
+				}
+				gc.lineTo(xs[used - 1], bottom);
+				gc.closePath();
+				gc.fill();
+			}
+			gc.setStroke(LINE);
+			gc.setLineWidth(1);
+			gc.beginPath();
+			for (int i = 0; i < used; i++) {
+				//Units of one column are drawn as a vertical line from their minimum to their maximum
+				if (i == 0)
+					gc.moveTo(xs[i], bottom - min[i] * scale);
+				else
+					gc.lineTo(xs[i], bottom - min[i] * scale);
+				gc.lineTo(xs[i], bottom - max[i] * scale);
+			}
+			gc.stroke();
+			gc.restore();
+
+			if (s == hoverSeries && hoverUnit >= 0 && hoverUnit < values.length)
+				drawHover(gc, hoverUnit, values[hoverUnit], bottom - values[hoverUnit] * scale);
+		}
+		if (dragStart >= 0 && dragEnd >= 0) {
+			gc.setFill(Color.rgb(65, 105, 225, 0.2));
+			gc.fillRect(Math.min(dragStart, dragEnd), 0, Math.abs(dragEnd - dragStart), height);
+		}
+	}
+
+	/**
+	 * Aggregates the visible units of every series per pixel column, the result is kept until the displayed range or
+	 * the width changes (e.g. hovering only redraws)
+	 */
+	private void aggregate() {
+		if (columnX != null && aggregatedLower == lower && aggregatedUpper == upper
+				&& aggregatedWidth == canvas.getWidth() && columnX.length == series.size())
+			return;
+		aggregatedLower = lower;
+		aggregatedUpper = upper;
+		aggregatedWidth = canvas.getWidth();
+		//The first and last visible unit may lie up to one column outside of the plot
+		int columns = (int) Math.ceil(plotWidth()) + 4;
+		columnX = new double[series.size()][columns];
+		columnMin = new double[series.size()][columns];
+		columnMax = new double[series.size()][columns];
+		columnCount = new int[series.size()];
+		maxValues = new int[series.size()];
+		for (int s = 0; s < series.size(); s++) {
+			int[] values = series.get(s);
+			double[] xs = columnX[s];
+			double[] min = columnMin[s];
+			double[] max = columnMax[s];
+			int first = Math.max(0, (int) Math.floor(lower));
+			int last = Math.min(values.length - 1, (int) Math.ceil(upper));
+			int used = 0;
+			int column = -1;
+			int maxValue = 1;
+			for (int u = first; u <= last; u++) {
+				if (values[u] == 0 && !showZero)
+					continue;
+				maxValue = Math.max(maxValue, values[u]);
+				int c = (int) (toX(u) - LEFT);
+				if (c != column || used == 0) {
+					column = c;
+					xs[used] = toX(u);
+					min[used] = values[u];
+					max[used] = values[u];
+					used++;
+				} else {
+					min[used - 1] = Math.min(min[used - 1], values[u]);
+					max[used - 1] = Math.max(max[used - 1], values[u]);
+				}
+			}
+			columnCount[s] = used;
+			maxValues[s] = maxValue;
+		}
+	}
+
+	private void drawAxes(GraphicsContext gc, int s, double top, double bottom, int maxValue) {
+		double right = LEFT + plotWidth();
+		gc.setFill(Color.BLACK);
+		gc.setFont(TITLE_FONT);
+		gc.setTextAlign(TextAlignment.CENTER);
+		gc.setTextBaseline(VPos.BOTTOM);
+		gc.fillText(types.get(s), LEFT + plotWidth() / 2, top - 4);
+
+		gc.setStroke(Color.GRAY);
+		gc.setLineWidth(1);
+		gc.strokeLine(LEFT, bottom, right, bottom);
+		gc.strokeLine(LEFT, top, LEFT, bottom);
+		gc.setFont(AXIS_FONT);
+		//y axis: zero and the maximum of the visible units
+		gc.setTextAlign(TextAlignment.RIGHT);
+		gc.setTextBaseline(VPos.CENTER);
+		gc.fillText("0", LEFT - 4, bottom);
+		gc.fillText(String.valueOf(maxValue), LEFT - 4, top);
+		//x axis: ticks at round numbers of units
+		double step = tickStep((upper - lower) * TICK_SPACING / plotWidth());
+		gc.setTextAlign(TextAlignment.CENTER);
+		gc.setTextBaseline(VPos.TOP);
+		for (double u = Math.ceil(lower / step) * step; u <= upper; u += step) {
+			double x = toX(u);
+			gc.strokeLine(x, bottom, x, bottom + 3);
+			gc.fillText(String.valueOf((long) u), x, bottom + 4);
+		}
+		if (s == types.size() - 1 && unitLabel != null)
+			gc.fillText(unitLabel, LEFT + plotWidth() / 2, bottom + 16);
+	}
+
+	/**
+	 * @return 1, 2 or 5 times a power of ten that is at least the given step
+	 */
+	private static double tickStep(double minimum) {
+		double step = 1;
+		while (true) {
+			for (int factor : new int[] { 1, 2, 5 }) {
+				if (step * factor >= minimum)
+					return step * factor;
+			}
+			step *= 10;
+		}
+	}
+
+	private void drawHover(GraphicsContext gc, int unit, int value, double y) {
+		double x = toX(unit);
+		gc.setFill(LINE);
+		gc.fillOval(x - 3, y - 3, 6, 6);
+		gc.setFill(Color.BLACK);
+		gc.setFont(AXIS_FONT);
+		gc.setTextAlign(x > LEFT + plotWidth() * 0.8 ? TextAlignment.RIGHT : TextAlignment.LEFT);
+		gc.setTextBaseline(VPos.BOTTOM);
+		gc.fillText(" " + unit + ": " + value + " ", x, y - 4);
+	}
+
+	/**
+	 * Finds the data point below the cursor: the unit with the highest value within the pixel column
+	 */
+	private void hover(MouseEvent event) {
+		int s = (int) (event.getY() / bandHeight());
+		hoverSeries = -1;
+		if (s >= 0 && s < types.size() && event.getX() >= LEFT && event.getX() <= LEFT + plotWidth()) {
+			int[] values = series.get(s);
+			int from = Math.max(0, (int) Math.floor(toUnit(event.getX() - 0.5)));
+			int to = Math.min(values.length - 1, (int) Math.ceil(toUnit(event.getX() + 0.5)));
+			int best = -1;
+			for (int u = from; u <= to; u++) {
+				if (values[u] == 0 && !showZero)
+					continue;
+				if (best < 0 || values[u] > values[best])
+					best = u;
+				else if (values[u] == values[best] && Math.abs(toX(u) - event.getX()) < Math.abs(toX(best) - event.getX()))
+					best = u;
+			}
+			if (best >= 0) {
+				hoverSeries = s;
+				hoverUnit = best;
+			}
+		}
+		draw();
+	}
+
+	private void pressed(MouseEvent event) {
+		if (event.getButton().equals(MouseButton.PRIMARY)) {
+			dragStart = event.getX();
+			dragEnd = -1;
+		} else {
+			dragStart = -1;
+			lower = minUnit;
+			upper = maxUnit;
+			draw();
+		}
+	}
+
+	private void released(MouseEvent event) {
+		if (!event.getButton().equals(MouseButton.PRIMARY) || dragStart < 0)
+			return;
+		if (dragEnd >= 0 && Math.abs(dragEnd - dragStart) > 3) {
+			//Zooming: at least one unit remains visible
+			double from = Math.max(minUnit, toUnit(Math.min(dragStart, dragEnd)));
+			double to = Math.min(maxUnit, toUnit(Math.max(dragStart, dragEnd)));
+			if (to - from < 1)
+				to = from + 1;
+			lower = from;
+			upper = to;
+		} else if (hoverSeries >= 0 && series.get(hoverSeries)[hoverUnit] > 0) {
+			ChartNode.showDetails(types.get(hoverSeries), fileLevel, drillDown, hoverUnit);
+		}
+		dragStart = -1;
+		dragEnd = -1;
+		draw();
+	}
+}
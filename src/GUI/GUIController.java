@@ -1,25 +1,17 @@
 package GUI;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.joda.time.DateTime;
-import org.joda.time.Days;
-import org.joda.time.Months;
-import org.joda.time.Seconds;
-import org.joda.time.Weeks;
 
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -43,6 +35,8 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
@@ -59,16 +53,22 @@ import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
+import metrics.ActivityCube;
 import metrics.Metrics;
+import metrics.StatisticsExport;
+import metrics.WindowedMetrics;
 import miner.ActivityIdentifier;
 import model.ChangeTemplate;
+import model.ColumnarLog;
 import model.EnrichedChange;
 import model.Log;
 import model.LogEntry;
-import model.git.GITLog;
 import model.graph.ChartNode;
-import reader.GITLogReader;
-import reader.LogReader;
+import model.graph.DrillDown;
+import model.graph.Downsampling;
+import snapshot.SnapshotLog;
+import snapshot.SnapshotReader;
+import snapshot.SnapshotWriter;
 
 /**
  * Main controller class of the project
@@ -82,22 +82,58 @@ import reader.LogReader;
 public class GUIController {
 	private Stage stage;
 	private final String REGEX_LOCATION = "RegularExpressions.csv";
-	private Log log;
+	//Points per series if the width of the charts is not known yet
+	private static final int DEFAULT_MAX_POINTS = 1000;
+	private ColumnarLog log;
 	private boolean asAreaChart = true;
+	private boolean asCanvas = false;
 	private boolean showZero = false;
 	public boolean autosize = false;
 	private boolean logging = false;
 	private Metrics m;
+	//KPIs over sliding windows, calculated once per log like m
+	private WindowedMetrics windowed;
+	//Prefix sums of the workload per type and day, the charts are read from it
+	private ActivityCube cube;
+	//Log that is currently read in the background, null if there is none
+	private LogIngestion ingestion;
 	
 	//Set of attributes required by the transformLog method
 	private boolean alreadySet = false;
 	private int zoomElem = 0;
 	private DateTime minDate = null;
 	private DateTime maxDate = null;
-	private HashMap<String, HashMap<Integer, ArrayList<LogEntry>>> logsPerUnit;
-	private HashMap<Integer, ArrayList<LogEntry>> innerLogList;
-	private HashMap<String, HashMap<Integer, ArrayList<EnrichedChange>>> changePerUnit;
-	private HashMap<Integer, ArrayList<EnrichedChange>> innerChangeList;
+	//Unit (day, week, month or percentage) of every day of the project in the current charts
+	private int[] units;
+	//Curves of the views (granularity and level) that were displayed already, cleared when a new log is loaded
+	private HashMap<String, Map<String, HashMap<Integer, Integer>>> curveCache = new HashMap<String, Map<String, HashMap<Integer, Integer>>>();
+	//Commits and changes of the data points are looked up by the ChartNode objects on click
+	private DrillDown drillDown = new DrillDown() {
+
+		@Override
+		public List<LogEntry> getCommits(String type, int unit) {
+			List<LogEntry> ret = new ArrayList<LogEntry>();
+			for (int i : getCommitsOfUnit(unit)) {
+				if (log.getLabels().get(log.getTypeId(i)).equals(type))
+					ret.add(log.getEntry(i));
+			}
+			return ret;
+		}
+
+		@Override
+		public List<EnrichedChange> getFileChanges(String type, int unit) {
+			List<EnrichedChange> ret = new ArrayList<EnrichedChange>();
+			int label = log.getLabels().indexOf(type);
+			for (int i : getCommitsOfUnit(unit)) {
+				for (int c = log.getChangeStart(i); c < log.getChangeEnd(i); c++) {
+					if (log.getLabelId(c) == label)
+						ret.add(new EnrichedChange(log.getActions().get(log.getActionId(c)),
+								log.getPaths().get(log.getPathId(c)), type));
+				}
+			}
+			return ret;
+		}
+	};
 	
 	//Set of attributes required by visualizeKPIData method
 	private Font f1 = new Font(15);
@@ -107,6 +143,12 @@ public class GUIController {
 	@FXML
 	private AnchorPane chartPane;
 	@FXML
+	private HBox progressBox;
+	@FXML
+	private ProgressBar progressBar;
+	@FXML
+	private Label progressLabel;
+	@FXML
 	private Tab chartTab;
 	@FXML
 	private Tab kpiTab;
@@ -144,6 +186,19 @@ public class GUIController {
 		transformLog();
 	}
 	
+	/**
+	 * Called by GUI
+	 * Swaps value of property asCanvas
+	 * Calls transfromLog method to redraw charts
+	 */
+	public void setCanvas() {
+		if (asCanvas)
+			asCanvas = false;
+		else
+			asCanvas = true;
+		transformLog();
+	}
+	
 	/**
 	 * Called by GUI
 	 * Swaps value of property asAreaChart
@@ -183,18 +238,17 @@ public class GUIController {
 	 */
 	private void calculateMetrics() {
 		VBox vb = new VBox();
-		m = new Metrics(log);
 		HashMap<String, HashMap<String, Integer>> ATW = m.getATW();
 		// Building the Author Tree
 		TreeItem<String> rootItem = new TreeItem<String>("KPIs");
 		rootItem.setExpanded(true);
 		// Project KPIs
 		TreeItem<String> projectItems = new TreeItem<String>("Project KPIs");
-		TreeItem<String> giniWorkItem = new TreeItem<String>("GINI Workload : " + m.PWS(ATW));
-		TreeItem<String> giniRelWorkItem = new TreeItem<String>("GINI Relative Workload : " + m.RPWS(ATW));
-		TreeItem<String> giniAuthorItem = new TreeItem<String>("GINI Author Participation : " + m.PIS(ATW));
+		TreeItem<String> giniWorkItem = new TreeItem<String>("GINI Workload : " + m.PWS());
+		TreeItem<String> giniRelWorkItem = new TreeItem<String>("GINI Relative Workload : " + m.RPWS());
+		TreeItem<String> giniAuthorItem = new TreeItem<String>("GINI Author Participation : " + m.PIS());
 		TreeItem<String> giniRelAuthorItem = new TreeItem<String>(
-				"GINI Relative Author Participation : " + m.RPIS(ATW));
+				"GINI Relative Author Participation : " + m.RPIS());
 		projectItems.getChildren().addAll(giniWorkItem, giniRelWorkItem, giniAuthorItem, giniRelAuthorItem);
 		rootItem.getChildren().add(projectItems);
 		// Author KPIs
@@ -214,23 +268,23 @@ public class GUIController {
 		for (String type : getSortedTypes(false)) {
 			TreeItem<String> item = new TreeItem<String>(type);
 			item.setExpanded(false);
-			TreeItem<String> PTWItem = new TreeItem<String>("PTW: " + m.PTW(type, ATW));
-			TreeItem<String> RPTWItem = new TreeItem<String>("RPTW: " + m.RPTW(type, ATW));
-			TreeItem<String> PTIItem = new TreeItem<String>("PTI: " + m.PTI(type, ATW));
+			TreeItem<String> PTWItem = new TreeItem<String>("PTW: " + m.PTW(type));
+			TreeItem<String> RPTWItem = new TreeItem<String>("RPTW: " + m.RPTW(type));
+			TreeItem<String> PTIItem = new TreeItem<String>("PTI: " + m.PTI(type));
 			TreeItem<String> NAPItem = new TreeItem<String>("NAP: " + m.NAP());
-			TreeItem<String> RPTIItem = new TreeItem<String>("RPTI: " + m.RPTI(type, ATW));
+			TreeItem<String> RPTIItem = new TreeItem<String>("RPTI: " + m.RPTI(type));
 			item.getChildren().addAll(PTWItem, RPTWItem, PTIItem, NAPItem, RPTIItem);
 			typeItem.getChildren().add(item);
 		}
 		rootItem.getChildren().add(typeItem);
 		/**
-		System.out.println("PW: " + m.PW(ATW));
+		System.out.println("PW: " + m.PW());
 		for (String type : getSortedTypes(false)) {
-			System.out.println("Type: " + type + " PTW: " + m.PTW(type, ATW));
-			System.out.println("RPTW: " + m.RPTW(type, ATW));
-			System.out.println("PTI: " + m.PTI(type, ATW));
+			System.out.println("Type: " + type + " PTW: " + m.PTW(type));
+			System.out.println("RPTW: " + m.RPTW(type));
+			System.out.println("PTI: " + m.PTI(type));
 			System.out.println("NAP: " + m.NAP());
-			System.out.println("Relative involvement of authors on type " + type + ": " + m.RPTI(type, ATW));
+			System.out.println("Relative involvement of authors on type " + type + ": " + m.RPTI(type));
 		}
 		**/
 		TreeView<String> tree = new TreeView<String>(rootItem);
@@ -249,7 +303,6 @@ public class GUIController {
 	private void visualizeKPIData(HashMap<String, HashMap<String, Integer>> ATW) {
 		// Setting up the Tab
 		GridPane gp = new GridPane();
-		m = new Metrics(log);
 		gp.prefWidthProperty().bind(stage.widthProperty());
 		gp.prefHeightProperty().bind(stage.heightProperty());
 
@@ -308,15 +361,15 @@ public class GUIController {
 
 		// true: means on file level
 		for (String type : getSortedTypes(false)) {
-			final XYChart.Data<Number, String> dat1 = new XYChart.Data<Number, String>(m.RPTW(type, ATW), type);
-			final XYChart.Data<Number, String> dat2 = new XYChart.Data<Number, String>(m.RPTI(type, ATW), type);
+			final XYChart.Data<Number, String> dat1 = new XYChart.Data<Number, String>(m.RPTW(type), type);
+			final XYChart.Data<Number, String> dat2 = new XYChart.Data<Number, String>(m.RPTI(type), type);
 			// Add ChangeListener to display value on Barchart
 			dat1.nodeProperty().addListener(new ChangeListener<Node>() {
 
 				@Override
 				public void changed(ObservableValue<? extends Node> observable, Node oldNode, Node node) {
 					if (node != null) {
-						displayLabel(dat1, m.PTW(type, ATW) + "");
+						displayLabel(dat1, m.PTW(type) + "");
 					}
 				}
 
@@ -327,7 +380,7 @@ public class GUIController {
 				@Override
 				public void changed(ObservableValue<? extends Node> observable, Node oldNode, Node node) {
 					if (node != null) {
-						displayLabel(dat2, m.PTI(type, ATW) + "");
+						displayLabel(dat2, m.PTI(type) + "");
 					}
 				}
 			});
@@ -348,7 +401,7 @@ public class GUIController {
 		Text t = new Text("Project Workload: ");
 		t.setFont(f1);
 		// t.setStyle("-fx-font-weight: bold");
-		Text t1 = new Text(m.PW(ATW) + "");
+		Text t1 = new Text(m.PW() + "");
 		t1.setFont(f2);
 		/**
 		 * Was trying to add a Mouseevent displaying info about the KPIs final Label
@@ -377,7 +430,7 @@ public class GUIController {
 		HBox hBox2 = new HBox();
 		Text t2 = new Text("GINI Workload: ");
 		t2.setFont(f1);
-		Text t3 = new Text((int) (m.PWS(ATW) * 100) + "%");
+		Text t3 = new Text((int) (m.PWS() * 100) + "%");
 		t3.setFont(f2);
 		// t3.setStyle("-fx-font-weight: bold");
 		hBox2.setAlignment(Pos.CENTER);
@@ -386,7 +439,7 @@ public class GUIController {
 		HBox hBox3 = new HBox();
 		Text t4 = new Text("GINI Authors: ");
 		t4.setFont(f1);
-		Text t5 = new Text((int) (m.PIS(ATW) * 100) + "%");
+		Text t5 = new Text((int) (m.PIS() * 100) + "%");
 		t5.setFont(f2);
 		// t3.setStyle("-fx-font-weight: bold");
 		hBox3.setAlignment(Pos.CENTER);
@@ -415,12 +468,58 @@ public class GUIController {
 		gp.add(hBox2, 0, 2, 2, 1);
 		gp.add(hBox3, 0, 4, 2, 1);
 		gp.add(hBox4, 0, 3, 2, 1);
+		gp.add(createSeriesChart(), 0, 5, 2, 1);
 
 		// Add pane to overarching node
 		diagramTab.setContent(gp);
 
 	}
 
+	/**
+	 * Creates a line chart of the specialisation KPIs over sliding windows (see WindowedMetrics)
+	 * The x axis counts the days since the start of the first window, the tick labels display the month
+	 * @return LineChart containing one series per KPI
+	 */
+	private LineChart<Number, Number> createSeriesChart() {
+		NumberAxis xAxis = new NumberAxis();
+		xAxis.setLabel("Start of " + windowed.getWindowDays() + " day window");
+		xAxis.setForceZeroInRange(false);
+		xAxis.setTickLabelFormatter(new StringConverter<Number>() {
+
+			@Override
+			public String toString(Number object) {
+				if (windowed.size() == 0)
+					return "";
+				return windowed.getStart(0).plusDays(object.intValue()).toString("MM.yyyy");
+			}
+
+			@Override
+			public Number fromString(String string) {
+				return null;
+			}
+		});
+		NumberAxis yAxis = new NumberAxis(0, 1, 0.1);
+		yAxis.setLabel("GINI");
+		LineChart<Number, Number> lc = new LineChart<Number, Number>(xAxis, yAxis);
+		lc.setTitle("Specialisation over time");
+		lc.setCreateSymbols(false);
+		String[] names = { "PWS", "RPWS", "PIS", "RPIS" };
+		for (int k = 0; k < names.length; k++) {
+			XYChart.Series<Number, Number> series = new XYChart.Series<Number, Number>();
+			series.setName(names[k]);
+			for (int w = 0; w < windowed.size(); w++) {
+				double value = k == 0 ? windowed.PWS(w)
+						: k == 1 ? windowed.RPWS(w) : k == 2 ? windowed.PIS(w) : windowed.RPIS(w);
+				// Windows without commits have no value
+				if (!Double.isNaN(value))
+					series.getData().add(new XYChart.Data<Number, Number>(w * windowed.getStepDays(), value));
+			}
+			lc.getData().add(series);
+		}
+		lc.prefWidthProperty().bind(stage.widthProperty());
+		return lc;
+	}
+
 	// This method was inspired by an online source and changed according to my needs:
 	// https://gist.github.com/jewelsea/5094893
 	/**
@@ -453,7 +552,7 @@ public class GUIController {
 
 	/**
 	 * Writes the enriched log file into a file that is specified by the user
-	 * This is enabled by the Serializable interface
+	 * The log is stored in the binary snapshot format (see SnapshotWriter)
 	 */
 	public void saveLog() {
 		if (log != null) {
@@ -464,10 +563,7 @@ public class GUIController {
 				File f;
 				f = fileChooser.showSaveDialog(stage);
 				if (f != null) {
-					FileOutputStream fos = new FileOutputStream(f);
-					ObjectOutputStream oos = new ObjectOutputStream(fos);
-					oos.writeObject(log);
-					oos.close();
+					SnapshotWriter.write(log, cube, m.getMatrix(), windowed, f);
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -483,7 +579,8 @@ public class GUIController {
 
 	/**
 	 * Loads a log file from the file system as selected by a user
-	 * This is enabled by the Serializable interface
+	 * Snapshots (see SnapshotWriter) and logs that were stored with the Serializable interface can be loaded
+	 * Snapshots are opened as SnapshotLog, their commits are only decoded when they are displayed
 	 * If successful, calls transformLog, calculateMetrics in order to create visualization and metrics
 	 */
 	public void loadLog() {
@@ -494,10 +591,22 @@ public class GUIController {
 			File f;
 			f = fileChooser.showOpenDialog(stage);
 			if (f != null) {
-				FileInputStream fis = new FileInputStream(f);
-				ObjectInputStream ois = new ObjectInputStream(fis);
-				log = (Log) ois.readObject();
-				ois.close();
+				if (SnapshotReader.isSnapshot(f)) {
+					//The charts and KPIs are restored from the snapshot, commits are decoded when they are displayed
+					SnapshotLog snapshot = SnapshotLog.open(f);
+					log = snapshot;
+					m = snapshot.getMetrics();
+					windowed = snapshot.getWindowed();
+					cube = snapshot.getCube();
+					curveCache.clear();
+				} else {
+					//Logs saved with Java serialization by earlier versions are converted
+					FileInputStream fis = new FileInputStream(f);
+					ObjectInputStream ois = new ObjectInputStream(fis);
+					log = ColumnarLog.of((Log) ois.readObject());
+					ois.close();
+					analyse(log, new Metrics(log));
+				}
 			}
 		} catch (Exception e) {
 			Alert errorAlert = new Alert(AlertType.ERROR);
@@ -552,8 +661,8 @@ public class GUIController {
 
 	/**
 	 * Method is called by menu item: Select Log
-	 * Creates a Dialog and calls the method initiateLog in order to create a new Log object
-	 * If this was successful, the method calls the transformLog and the calcualateMetrics methods in order to create visualizations
+	 * Creates a Dialog and calls the method initiateLog in order to create a new Log object in the background
+	 * If this was successful, the transformLog and the calcualateMetrics methods are called in order to create visualizations
 	 * Displays and hides the settings panel on the left side of the GUI
 	 */
 	public void selectFile() {
@@ -562,15 +671,7 @@ public class GUIController {
 		File f;
 		f = fileChooser.showOpenDialog(stage);
 		if (f != null) {
-			log = initiateLog(f.getAbsolutePath());
-			if (log != null) {
-				transformLog();
-				calculateMetrics();
-				if (chartTab.isSelected())
-					displaySettings();
-				else
-					hideSettings();
-			}
+			initiateLog(f.getAbsolutePath());
 		}
 	}
 
@@ -579,23 +680,81 @@ public class GUIController {
 	 * canvas.getGraphicsContext2D(); gc.setFill(Paint.valueOf("green")); for
 	 * (GraphElement ge : lg) { gc.fillRect(ge.x, ge.y, 1, ge.height / 2); } }
 	 **/
-	private Log initiateLog(String path) {
-		Log log;
-		try {
-			LogReader<LogEntry> lr = new GITLogReader(path);
-			log = new GITLog(lr.readAll());
-			ActivityIdentifier AI = new ActivityIdentifier(REGEX_LOCATION);
-			log = AI.enrichLog(log);
-			lr.close();
-		} catch (Exception e) {
-			log = null;
+	/**
+	 * Reads, enriches and analyses the log in a background thread (see LogIngestion)
+	 * The progress is displayed below the charts, the log is only replaced if the task succeeds
+	 * @param path: Location of the GIT log file
+	 */
+	private void initiateLog(String path) {
+		if (ingestion != null)
+			ingestion.cancel();
+		LogIngestion task = new LogIngestion(path, REGEX_LOCATION);
+		ingestion = task;
+		progressBar.progressProperty().bind(task.progressProperty());
+		progressLabel.textProperty().bind(task.messageProperty());
+		progressBox.setVisible(true);
+		progressBox.setManaged(true);
+		//The handlers are called on the JavaFX application thread
+		task.setOnSucceeded(event -> {
+			finishIngestion(task);
+			log = task.getValue();
+			m = task.getMetrics();
+			windowed = task.getWindowed();
+			cube = task.getCube();
+			curveCache.clear();
+			transformLog();
+			calculateMetrics();
+			if (chartTab.isSelected())
+				displaySettings();
+			else
+				hideSettings();
+		});
+		task.setOnFailed(event -> {
+			finishIngestion(task);
 			Alert errorAlert = new Alert(AlertType.ERROR);
 			errorAlert.setTitle("Error");
 			errorAlert.setHeaderText("Input not valid");
-			errorAlert.setContentText("Please select a file that was created using the specified GIT log command (see Help Dialog) \n" +e.getMessage());
+			errorAlert.setContentText("Please select a file that was created using the specified GIT log command (see Help Dialog) \n" +task.getException().getMessage());
 			errorAlert.showAndWait();
-		}
-		return log;
+		});
+		task.setOnCancelled(event -> finishIngestion(task));
+		Thread thread = new Thread(task, "Log ingestion");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Hides the progress of the task, unless another task was started in the meantime
+	 */
+	private void finishIngestion(LogIngestion task) {
+		if (ingestion != task)
+			return;
+		ingestion = null;
+		progressBar.progressProperty().unbind();
+		progressLabel.textProperty().unbind();
+		progressBox.setVisible(false);
+		progressBox.setManaged(false);
+	}
+
+	/**
+	 * Method is called by the cancel button of the progress bar
+	 * Stops reading the log, the previous log stays displayed
+	 */
+	public void cancelLoading() {
+		if (ingestion != null)
+			ingestion.cancel();
+	}
+
+	/**
+	 * Calculates the metrics, the KPI series and the activity cube of a new log
+	 * @param log: Enriched log
+	 * @param metrics: Metrics of the log
+	 */
+	private void analyse(ColumnarLog log, Metrics metrics) {
+		m = metrics;
+		windowed = new WindowedMetrics(log);
+		cube = new ActivityCube(log);
+		curveCache.clear();
 	}
 
 	/**
@@ -638,28 +797,6 @@ public class GUIController {
 		return retVal;
 	}
 
-	/**
-	 * Depending on the chosen time-perspective, this method returns the amount of days, weeks or months between two dates. 
-	 * @param t1: First date
-	 * @param t2: Second date
-	 * @return: amount of days,weeks, month between t1 and t2
-	 */
-	private int getUnit(DateTime t1, DateTime t2) {
-		int unit = 0;
-		switch (getSelection()) {
-		case 0:
-			unit = Days.daysBetween(t1.withTimeAtStartOfDay(), t2.withTimeAtStartOfDay()).getDays();
-			break;
-
-		case 1:
-			unit = Weeks.weeksBetween(t1.dayOfWeek().withMinimumValue(), t2.dayOfWeek().withMaximumValue()).getWeeks();
-			break;
-		case 2:
-			unit = Months.monthsBetween(t1, t2).getMonths();
-		}
-		return unit;
-	}
-
 	/**
 	 * Returns true if file-level is selected in dropdown list Returns false if
 	 * commit-level is selected in dropdown list
@@ -691,126 +828,48 @@ public class GUIController {
 	public void transformLog() {
 		if (log == null)
 			return;
-		minDate = null;
-		maxDate = null;
 		zoomElem = 0;
 		alreadySet = false;
-		// String = type, Integer = week, Integer = number of changes
-		Map<String, HashMap<Integer, Integer>> Curves = new HashMap<String, HashMap<Integer, Integer>>();
-		// First integer is week, second integer is number of changes
-		HashMap<Integer, Integer> typeValues;
-		logsPerUnit = new HashMap<String, HashMap<Integer, ArrayList<LogEntry>>>();
-		changePerUnit = new HashMap<String, HashMap<Integer, ArrayList<EnrichedChange>>>();
-		int unit = 0;
-		
-		// min and max
-		DateTime dt;
-		for (LogEntry l : log.getAllEntries()) {
-			dt = l.getDate();
-			if (minDate == null)
-				minDate = dt;
-			if (maxDate == null)
-				maxDate = dt;
-			if (dt.compareTo(maxDate) > 0) {
-				maxDate = dt;
-			}
-			if (dt.compareTo(minDate) < 0) {
-				minDate = dt;
-			}
-		}
-		
+		minDate = cube.getFirst();
+		maxDate = cube.getLast();
+		if (minDate == null)
+			return;
+
 		//Logging functionality, required to split the duration of the project into percentages
 		int loggingStepSize = 100;
-		long loggingUnit = maxDate.getMillis() - minDate.getMillis();
-		double loggingStep;
-		double loggdays = ((double) loggingUnit / (double) (1000 * 60 * 60 * 24));
-		if (loggdays >= loggingStepSize) {
-			loggingStep = loggdays / loggingStepSize;
+		if (logging) {
+			units = cube.getPercentBuckets(loggingStepSize);
 		} else {
-			loggingStep = loggingUnit / loggdays;
-		}
-
-		for (LogEntry l : log.getAllEntries()) {
-			if (logging) {
-
-				unit = (int) Math
-						.floor((double) (Seconds.secondsBetween(minDate, l.getDate()).getSeconds() / (60 * 60 * 24))
-								/ loggingStep);
-			} else {
-				unit = getUnit(minDate, l.getDate());
+			switch (getSelection()) {
+			case 1:
+				units = cube.getWeekBuckets();
+				break;
+			case 2:
+				units = cube.getMonthBuckets();
+				break;
+			default:
+				units = cube.getDayBuckets();
 			}
-			// Iterate over all changes: Here the distinction between filelevel and
-			// commitlevel visualization is made
-			Integer count;
-			if (getLevel()) {
-				for (ChangeTemplate change : l.getChangeList()) {
-					EnrichedChange ec = (EnrichedChange) change;
-					if(ec.getPath().equals("docum2ent.doc"))
-						System.out.println("hi");
-					if (Curves.containsKey(ec.getActivityLabel())) {
-						typeValues = Curves.get(ec.getActivityLabel());
-					}else {
-						typeValues = new HashMap<Integer, Integer>();
-					}
-					if (typeValues.containsKey(unit)) {
-						count = typeValues.get(unit);
-					}else {
-						count = 0;
-					}
-					count = count + 1;
-					typeValues.put(unit, count);
-
-					ArrayList<EnrichedChange> al;
-					// Storage of logfiles per type per week/day
-					if (changePerUnit.containsKey(ec.getActivityLabel())) {
-						innerChangeList = changePerUnit.get(ec.getActivityLabel());
-					} else {
-						innerChangeList = new HashMap<Integer, ArrayList<EnrichedChange>>();
-					}
-					if (innerChangeList.containsKey(unit)) {
-						al = innerChangeList.get(unit);
-					} else {
-						al = new ArrayList<EnrichedChange>();
-
-					}
-					al.add(ec);
-					innerChangeList.put(unit, al);
-					changePerUnit.put(ec.getActivityLabel(), innerChangeList);
-					Curves.put(ec.getActivityLabel(), typeValues);
-				}
-			} else {
-				if (Curves.containsKey(l.getType())) {
-					typeValues = Curves.get(l.getType());
-				} else {
-					typeValues = new HashMap<Integer, Integer>();
-				}
-				if (typeValues.containsKey(unit)) {
-					count = typeValues.get(unit);
-				} else {
-					count = 0;
-				}
-				count = count + 1;
-				typeValues.put(unit, count);
-				Curves.put(l.getType(), typeValues);
-
-				ArrayList<LogEntry> al;
-				// Storage of logfiles per type per week/day
-				if (logsPerUnit.containsKey(l.getType())) {
-					innerLogList = logsPerUnit.get(l.getType());
-				} else {
-					innerLogList = new HashMap<Integer, ArrayList<LogEntry>>();
-				}
-				if (innerLogList.containsKey(unit)) {
-					al = innerLogList.get(unit);
-				} else {
-					al = new ArrayList<LogEntry>();
+		}
+		final int upperBound = units[units.length - 1] + 2;
 
-				}
-				al.add(l);
-				innerLogList.put(unit, al);
-				logsPerUnit.put(l.getType(), innerLogList);
-			}
+		//The curves are read from the prefix sums of the cube once per granularity and level
+		//Switching back to a view or changing the display settings reuses them
+		String view = (logging ? "%" : String.valueOf(getSelection())) + (getLevel() ? "F" : "C");
+		// String = type, Integer = week, Integer = number of changes
+		Map<String, HashMap<Integer, Integer>> Curves = curveCache.get(view);
+		if (Curves == null) {
+			//The days are rolled up into the units, only units with changes are stored
+			Curves = cube.curves(getLevel(), units);
+			curveCache.put(view, Curves);
+		}
 
+		//The canvas renderer draws all types onto one Canvas instead of one chart per type
+		if (asCanvas) {
+			chartTab.setContent(createCanvas(Curves, logging ? loggingStepSize : upperBound));
+			if (logging)
+				log(Curves, loggingStepSize, "Statistics.csv");
+			return;
 		}
 
 		VBox vb = new VBox();
@@ -828,7 +887,7 @@ public class GUIController {
 			na.setLowerBound(0);
 			//If logging is active, the upper bound is set to 100 (loggingStepSize)
 			if (!logging)
-				na.setUpperBound(getUnit(minDate, maxDate) + 2);
+				na.setUpperBound(upperBound);
 			else
 				na.setUpperBound(loggingStepSize);
 
@@ -841,6 +900,11 @@ public class GUIController {
 			} else {
 				nb.setLabel("Commits");
 			}
+			//Transforming the curve object to an array in order to fill the charts with values
+			final int[] values = toArray(Curves.get(type));
+			//Adds ChartNode objects to the data of the XYChart.Series, the series is downsampled to the width of the chart
+			final XYChart.Series<Number, Number> series = new XYChart.Series<Number, Number>(
+					plot(type, values, 0, values.length - 1, getMaxPoints()));
 			na.setOnMousePressed(new EventHandler<MouseEvent>() {
 
 				@Override
@@ -862,6 +926,9 @@ public class GUIController {
 										na.setUpperBound(value);
 									}
 									alreadySet = false;
+									//More points are displayed for the zoomed range
+									series.getData().setAll(plot(type, values, (int) na.getLowerBound(),
+											(int) Math.ceil(na.getUpperBound()), getMaxPoints()));
 								} else {
 									alreadySet = true;
 									zoomElem = value;
@@ -877,43 +944,25 @@ public class GUIController {
 						zoomElem = -1;
 						na.setLowerBound(0);
 						if (!logging)
-							na.setUpperBound(getUnit(minDate, maxDate) + 2);
+							na.setUpperBound(upperBound);
 						else
 							na.setUpperBound(100);
+						series.getData().setAll(plot(type, values, 0, values.length - 1, getMaxPoints()));
 					}
 				}
 
 			});
-			XYChart.Series<Number, Number> series = new XYChart.Series<Number, Number>();
-			if (choiceBoxLevel.getSelectionModel().getSelectedIndex() == 0)
-				series.setName("Commits");
-			else
-				series.setName("Files");
-			int[] xVal = new int[java.util.Collections.max(Curves.get(type).keySet()) + 1];
-			//Transforming the curve object to an XYChart.Data object in order to fill the charts with values
-			for (int j = 0; j <= java.util.Collections.max(Curves.get(type).keySet()); j++) {
-				if (Curves.get(type).keySet().contains(j)) {
-					xVal[j] = Curves.get(type).get(j);
-					System.out.println("An der stelle j: " + j + " -fr type : " + type + " - wird die Axe auf : "
-							+ Curves.get(type).get(j) + " gesetzt");
-					series.getData().add(new XYChart.Data<Number, Number>(j, Curves.get(type).get(j)));
-				} else {
-
-					xVal[j] = 0;
-					if (showZero)
-						series.getData().add(new XYChart.Data<Number, Number>(j, 0));
-				}
-			}
 			//Creates an Area- or a LineChart object
-			//Adds ChartNode objects to the data of the XYChart.Series
+			ObservableList<XYChart.Series<Number, Number>> chartData = FXCollections.observableArrayList();
+			chartData.add(series);
 			if (asAreaChart) {
-				lc = new AreaChart<Number, Number>(na, nb, FXCollections.observableArrayList(
-						new XYChart.Series("Data point", FXCollections.observableArrayList(plot(type, xVal)))));
+				series.setName("Data point");
+				lc = new AreaChart<Number, Number>(na, nb, chartData);
 			} else {
-				lc = new LineChart<Number, Number>(na, nb, FXCollections.observableArrayList(
-						new XYChart.Series(FXCollections.observableArrayList(plot(type, xVal)))));
-				((LineChart) lc).setStyle("-fx-stroke-width: 1px;");
-				((LineChart) lc).setCreateSymbols(false);
+				LineChart<Number, Number> line = new LineChart<Number, Number>(na, nb, chartData);
+				line.setStyle("-fx-stroke-width: 1px;");
+				line.setCreateSymbols(false);
+				lc = line;
 			}
 			lc.setPrefHeight(350);
 			lc.setTitle(type);
@@ -947,95 +996,118 @@ public class GUIController {
 	 */
 	private void log(Map<String, HashMap<Integer, Integer>> curves, int loggingStepSize, String filename) {
 		try {
-
-			filename = "Statistics.csv";
-			FileWriter fw = new FileWriter(filename, true);
-			BufferedWriter bw = new BufferedWriter(fw);
-			PrintWriter out = new PrintWriter(bw);
-			m = new Metrics(log);
-			HashMap<String, HashMap<String, Integer>> ATW = m.getATW();
-			int sum = 0;
-			int val = 0;
-			//Out 2:
-			//out.println("-- NEW LOG --");
-			//int nrCommits = log.getAllEntries().size();
-			//format: Nr Commits & Workload & Nr Authors & Nr Types & Gini Type & Gini Authors & WL Code & WL Test & WL Doc
-			//out.println(nrCommits + " & " + m.PW(ATW) +" & " + m.NAP() +" & " + m.NTP()+" & " + ((double)Math.round(m.PWS(ATW) * 100000d) / 100000d) +" & "+ ((double)Math.round(m.PIS(ATW) * 100000d) / 100000d)+" & "+m.PTW("code",ATW)+" & " + m.PTW("doc",ATW)+" & " + m.PTW("test",ATW)+" & "+m.PTW("unknown",ATW)+"\n");
-			
-			out.println("%--%NEW LOG%--%");
-			out.println("NAP:" + m.NAP() + ",NTP:" + m.NTP() + ",PIS:" + m.PIS(ATW) + ",RPIS:" + m.RPIS(ATW)
-					+ ",PW:" + m.PW(ATW) + ",PWS:" + m.PWS(ATW) + ",RPWS:" + m.RPWS(ATW));
-
-			for (String type : ActivityIdentifier.getActivityLabels(REGEX_LOCATION)) {
-				out.print(type + ",");
-				for (int i = 0; i < loggingStepSize; i++) {
-					// out.print(i+": ");
-					if (curves.containsKey(type)) {
-						if (curves.get(type).keySet().contains(i)) {
-							val = curves.get(type).get(i);
-							out.print(val);
-							sum += val;
-
-						} else {
-							out.print("0");
-						}
-					} else {
-						out.print("-1");
-						break;
-					}
-					if (i != loggingStepSize - 1) {
-						out.print(",");
-					}
-				}
-				out.print("--PTW:" + m.PTW(type, ATW) + ",RPTW:" + m.RPTW(type, ATW) + ",PTI:" + m.PTI(type, ATW)
-						+ ",RPTI:" + m.RPTI(type, ATW) + ",CNTRL:" + sum + "\n");
-						
-			}
-			// out.print(type+",");
-			out.close();
+			//Out 2 (Statistic_Table.txt) is written by the batch analyzer: StatisticsExport.writeTableRow
+			new StatisticsExport(filename, StatisticsExport.TABLE, StatisticsExport.SERIES).writeStatistics(m, windowed, curves,
+					ActivityIdentifier.getActivityLabels(REGEX_LOCATION), loggingStepSize);
 		} catch (IOException e) {
 			System.err.println("Can't access the statistic file");
 		}
 	}
+	/**
+	 * @param curve: Number of changes per unit
+	 * @return Number of changes per unit as array, 0 for units that are not contained in the curve
+	 */
+	private static int[] toArray(HashMap<Integer, Integer> curve) {
+		int[] values = new int[java.util.Collections.max(curve.keySet()) + 1];
+		for (Map.Entry<Integer, Integer> e : curve.entrySet()) {
+			values[e.getKey()] = e.getValue();
+		}
+		return values;
+	}
+
+	/**
+	 * Called by the transformLog method if the canvas renderer is selected
+	 * Creates one ActivityCanvas that contains the curves of all types
+	 * @param curves: Number of changes per type and unit
+	 * @param upperBound: Last unit of the x axis
+	 * @return ScrollPane containing the canvas
+	 */
+	private javafx.scene.control.ScrollPane createCanvas(Map<String, HashMap<Integer, Integer>> curves, int upperBound) {
+		ActivityCanvas canvas = new ActivityCanvas(drillDown, getLevel(), asAreaChart, showZero,
+				logging ? "% of time" : choiceBox.getSelectionModel().getSelectedItem());
+		ArrayList<String> types = getSortedTypes(getLevel());
+		for (String type : types) {
+			canvas.addSeries(type, toArray(curves.get(type)));
+		}
+		canvas.setRange(0, upperBound);
+		canvas.prefWidthProperty().bind(chartPane.widthProperty().subtract(15));
+		if (autosize)
+			canvas.prefHeightProperty().bind(chartPane.heightProperty().subtract(60));
+		else
+			canvas.setPrefHeight(350 * types.size());
+		return new javafx.scene.control.ScrollPane(canvas);
+	}
+
 	/**
 	 * Called by the transformLog method
 	 * Appends ChartNode objects to the list of integers that is passed
+	 * Only the units from..to (and one more unit on each side, so that the line continues at the borders) are plotted,
+	 * if they contain more than maxPoints points, the points are downsampled (see Downsampling)
 	 * @param type: Activity type
 	 * @param y: Array of integer values that are displayed in a chart
+	 * @param from: First displayed unit
+	 * @param to: Last displayed unit
+	 * @param maxPoints: Maximum number of points, usually the width of the chart in pixels
 	 * @return: List to be inserted into a chart
 	 */
-	public ObservableList<XYChart.Data<Integer, Integer>> plot(String type, int... y) {
-		final ObservableList<XYChart.Data<Integer, Integer>> dataset = FXCollections.observableArrayList();
-		int i = 0;
-		int nrOfJumps = 0;
+	public ObservableList<XYChart.Data<Number, Number>> plot(String type, int[] y, int from, int to, int maxPoints) {
+		final ObservableList<XYChart.Data<Number, Number>> dataset = FXCollections.observableArrayList();
 		int max = 0;
 		for (int j : y) {
 			if (j > max)
 				max = j;
 		}
-		while (i < y.length) {
-			// Do we want to display 0 values?
-			if (y[i] == 0 && !showZero) {
-				i++;
-				nrOfJumps++;
-				continue;
+		from = Math.max(0, from - 1);
+		to = Math.min(y.length - 1, to + 1);
+		// Do we want to display 0 values?
+		int[] xs = new int[Math.max(0, to - from + 1)];
+		int[] ys = new int[xs.length];
+		int n = 0;
+		for (int i = from; i <= to; i++) {
+			if (y[i] != 0 || showZero) {
+				xs[n] = i;
+				ys[n++] = y[i];
 			}
-			final XYChart.Data<Integer, Integer> data = new XYChart.Data<>(i, y[i]);
+		}
+		int prior = 0;
+		for (int k : Downsampling.largestTriangleThreeBuckets(xs, ys, n, maxPoints)) {
+			int i = xs[k];
+			final XYChart.Data<Number, Number> data = new XYChart.Data<Number, Number>(i, y[i]);
 			ChartNode chtN;
 			if (y[i] > 0) {
-				if (!getLevel())
-					chtN = new ChartNode((i == 0) ? 0 : y[i - nrOfJumps], y[i], max, logsPerUnit.get(type), null, i);
-				else
-					chtN = new ChartNode((i == 0) ? 0 : y[i - nrOfJumps], y[i], max, null, changePerUnit.get(type), i);
+				chtN = new ChartNode(prior, y[i], max, type, getLevel(), drillDown, i);
 				data.setNode(chtN);
 			}
 			dataset.add(data);
-			i++;
-			nrOfJumps = 1;
+			prior = y[i];
 		}
 		return dataset;
 	}
 
+	/**
+	 * Looks up the commits of one unit of the current charts in the activity cube
+	 * @param unit: Day, week, month or percentage
+	 * @return indices of the commits in the log
+	 */
+	private int[] getCommitsOfUnit(int unit) {
+		//units is ascending, the unit is a range of days
+		int from = 0;
+		while (from < units.length && units[from] < unit)
+			from++;
+		int to = from;
+		while (to < units.length && units[to] == unit)
+			to++;
+		return cube.getCommits(from, to);
+	}
+
+	/**
+	 * @return Maximum number of points of a series: one point per pixel of the chart width
+	 */
+	private int getMaxPoints() {
+		double width = chartPane.getWidth() - 15;
+		return width > 0 ? (int) width : DEFAULT_MAX_POINTS;
+	}
+
 	/**
 	 * Returns a list of all activity types that exist in the project If commitLevel
 	 * is false, returns the activity types for file level If commitLevel is true,
@@ -1044,34 +1116,15 @@ public class GUIController {
 	 * @return: ArrayList of all activity types
 	 */
 	private ArrayList<String> getSortedTypes(boolean fileLevel) {
-		m = new Metrics(log);
 		ArrayList<String> categories = new ArrayList<String>();
 		if (log != null) {
-			if (!fileLevel) {
-				for (LogEntry l : log.getAllEntries()) {
-					if (!categories.contains(l.getType())) {
-						categories.add(l.getType());
-						// if (l.getType() == "")
-						// System.out.println("yi");
-					}
-				}
-			} else {
-				for (LogEntry l : log.getAllEntries()) {
-					for (ChangeTemplate ct : l.getChangeList()) {
-						EnrichedChange ec = (EnrichedChange) ct;
-						if (!categories.contains(ec.getActivityLabel())) {
-							categories.add(ec.getActivityLabel());
-						}
-					}
-				}
-			}
-			HashMap<String, HashMap<String, Integer>> ATW = m.getATW();
+			categories.addAll(cube.getTypes(fileLevel));
 			Collections.sort(categories, new Comparator<String>() {
 
 				@Override
 				public int compare(String o1, String o2) {
-					int i1 = m.PTW(o1, ATW);
-					int i2 = m.PTW(o2, ATW);
+					int i1 = m.PTW(o1);
+					int i2 = m.PTW(o2);
 
 					return Integer.compare(i2, i1);
 				}
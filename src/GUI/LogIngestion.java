@@ -0,0 +1,119 @@
+package GUI;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.concurrent.Task;
+import metrics.ActivityCube;
+import metrics.Metrics;
+import metrics.MetricsAccumulator;
+import metrics.WindowedMetrics;
+import miner.ActivityIdentifier;
+import model.ColumnarLog;
+import reader.ParallelGITLogReader;
+
+/**
+ * Reads, enriches and analyses a GIT log file in the background
+ * The progress (bytes parsed, commits per second, commits classified) is reported with updateProgress and
+ * updateMessage, the GUI binds its progress bar to them. The results (log, metrics, KPI series and activity cube)
+ * are only read by the GUI after the task succeeded, nothing of the GUI is changed while the task runs.
+ * The task can be cancelled at any time, the parser and classifier threads stop with the next commit.
+ * @author Paul Kneringer
+ */
+public class LogIngestion extends Task<ColumnarLog> {
+	//Minimum time between two progress updates
+	private static final long UPDATE_INTERVAL = 100;
+
+	private String path;
+	private String regexLocation;
+	private Metrics metrics;
+	private WindowedMetrics windowed;
+	private ActivityCube cube;
+
+	/**
+	 * @param path: Location of the GIT log file
+	 * @param regexLocation: Location of the regular expressions of the ActivityIdentifier
+	 */
+	public LogIngestion(String path, String regexLocation) {
+		this.path = path;
+		this.regexLocation = regexLocation;
+	}
+
+	@Override
+	protected ColumnarLog call() throws Exception {
+		updateMessage("Reading " + path);
+		ActivityIdentifier AI = new ActivityIdentifier(regexLocation);
+		ColumnarLog columns = new ColumnarLog();
+		MetricsAccumulator accumulator = new MetricsAccumulator();
+		AtomicInteger parsed = new AtomicInteger();
+		long start = System.currentTimeMillis();
+		try (ParallelGITLogReader lr = new ParallelGITLogReader(path)) {
+			long size = lr.getSize();
+			long[] lastUpdate = { 0 };
+			//Entries are enriched while they are parsed and stored in columns in the order of the file
+			AI.enrich(lr.stream().peek(l -> {
+				checkCancelled();
+				parsed.incrementAndGet();
+			})).forEachOrdered(l -> {
+				checkCancelled();
+				columns.add(l);
+				accumulator.accept(l);
+				long now = System.currentTimeMillis();
+				if (now - lastUpdate[0] >= UPDATE_INTERVAL) {
+					lastUpdate[0] = now;
+					report(lr.getBytesParsed(), size, parsed.get(), columns.size(), now - start);
+				}
+			});
+			report(size, size, parsed.get(), columns.size(), System.currentTimeMillis() - start);
+		}
+
+		//The metrics are collected while the log is read, they are calculated once per log
+		updateMessage("Calculating metrics of " + columns.size() + " commits");
+		metrics = new Metrics(accumulator.snapshot());
+		checkCancelled();
+		windowed = new WindowedMetrics(columns);
+		checkCancelled();
+		cube = new ActivityCube(columns);
+		return columns;
+	}
+
+	private void checkCancelled() {
+		if (isCancelled())
+			throw new CancellationException("Reading of " + path + " was cancelled");
+	}
+
+	/**
+	 * @param bytes: Bytes parsed so far
+	 * @param size: Size of the file
+	 * @param parsed: Commits parsed so far
+	 * @param classified: Commits classified (and stored in order) so far
+	 * @param millis: Time since the start
+	 */
+	private void report(long bytes, long size, int parsed, int classified, long millis) {
+		updateProgress(bytes, size);
+		long perSecond = millis == 0 ? 0 : classified * 1000L / millis;
+		updateMessage(String.format("%.1f of %.1f MB parsed, %d of %d commits classified, %d commits/s",
+				bytes / 1048576.0, size / 1048576.0, classified, parsed, perSecond));
+	}
+
+	/**
+	 * @return Metrics of the log, null until the task succeeded
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return KPI series of the log, null until the task succeeded
+	 */
+	public WindowedMetrics getWindowed() {
+		return windowed;
+	}
+
+	/**
+	 * @return Activity cube of the log, null until the task succeeded
+	 */
+	public ActivityCube getCube() {
+		return cube;
+	}
+}
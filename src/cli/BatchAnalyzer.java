@@ -0,0 +1,219 @@
+package cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import metrics.ActivityCube;
+import metrics.Metrics;
+import metrics.MetricsAccumulator;
+import metrics.StatisticsExport;
+import metrics.WindowedMetrics;
+import miner.ActivityIdentifier;
+import model.ColumnarLog;
+import model.git.GITLog;
+import reader.MappedGITLogReader;
+import reader.ParallelGITLogReader;
+
+/**
+ * Analyses many GIT log files without the GUI (no JavaFX is loaded)
+ * Every log is read, enriched and analysed by one worker of a fixed thread pool, the ActivityIdentifier and its
+ * label cache are shared by all workers. If there are fewer logs than workers, every log is read in chunks and
+ * enriched in parallel on a fork-join pool of the same size instead. The KPIs are written to Statistics.csv and Statistic_Table.txt like the
+ * logging mode of the GUI does, the KPI series to KPISeries.csv, in the order of the arguments.
+ *
+ * Usage: java cli.BatchAnalyzer [options] logs...
+ * Logs can be files or directories (all files of the directory are analysed).
+ * -threads n: number of workers, default: number of processors
+ * -regex file: regular expressions, default: RegularExpressions.csv
+ * -statistics file: default: Statistics.csv
+ * -table file: default: Statistic_Table.txt
+ * -series file: default: KPISeries.csv
+ * -filelevel: curves of the activity labels of the file changes instead of the commit types
+ * @author Paul Kneringer
+ */
+public class BatchAnalyzer {
+	//The duration of a project is split into percentages, like the logging mode of the GUI
+	private static final int LOGGING_STEPS = 100;
+
+	private ActivityIdentifier AI;
+	private List<String> labels;
+	private StatisticsExport export;
+	private boolean fileLevel;
+
+	/**
+	 * Result of one log, formatted by the worker and written by the main thread
+	 */
+	private static class Result {
+		private String path;
+		private int commits;
+		private long millis;
+		private String statistics;
+		private String tableRow;
+		private String series;
+	}
+
+	/**
+	 * @param regexLocation: Location of the regular expressions
+	 * @param export: Files the KPIs are appended to
+	 * @param fileLevel: true for curves of the file changes, false for curves of the commits
+	 */
+	public BatchAnalyzer(String regexLocation, StatisticsExport export, boolean fileLevel) {
+		this.AI = new ActivityIdentifier(regexLocation);
+		this.labels = ActivityIdentifier.getActivityLabels(regexLocation);
+		this.export = export;
+		this.fileLevel = fileLevel;
+	}
+
+	/**
+	 * Reads, enriches and analyses one log
+	 * @param split: Pool that reads and enriches the log in parallel, null to stream it on the calling worker
+	 */
+	private Result analyse(String path, ForkJoinPool split) throws IOException {
+		long start = System.currentTimeMillis();
+		ColumnarLog columns;
+		MetricsAccumulator accumulator = new MetricsAccumulator();
+		if (split != null) {
+			try (ParallelGITLogReader lr = new ParallelGITLogReader(path, split)) {
+				GITLog log = lr.readLog();
+				//The parallel stream of enrichLog runs in the pool of the task that starts it
+				columns = ColumnarLog.of(split.submit(() -> AI.enrichLog(log, true)).join());
+			}
+			for (int i = 0; i < columns.size(); i++) {
+				accumulator.accept(columns, i);
+			}
+		} else {
+			ColumnarLog read = new ColumnarLog();
+			try (MappedGITLogReader lr = new MappedGITLogReader(path)) {
+				AI.enrich(lr.stream()).forEachOrdered(l -> {
+					read.add(l);
+					accumulator.accept(l);
+				});
+			}
+			columns = read;
+		}
+		Result r = new Result();
+		r.path = path;
+		r.commits = columns.size();
+		if (r.commits > 0) {
+			Metrics m = new Metrics(accumulator.snapshot());
+			ActivityCube cube = new ActivityCube(columns);
+			HashMap<String, HashMap<Integer, Integer>> curves = cube.curves(fileLevel,
+					cube.getPercentBuckets(LOGGING_STEPS));
+			r.statistics = StatisticsExport.formatStatistics(m, curves, labels, LOGGING_STEPS);
+			r.tableRow = StatisticsExport.formatTableRow(r.commits, m);
+			r.series = StatisticsExport.formatSeries(new WindowedMetrics(columns));
+		}
+		r.millis = System.currentTimeMillis() - start;
+		return r;
+	}
+
+	/**
+	 * Analyses the logs on a fixed number of workers
+	 * A log that cannot be read is reported and skipped, the other logs are analysed anyway.
+	 * @param paths: Locations of the GIT log files
+	 * @param threads: Number of workers
+	 * @return number of logs that were analysed
+	 */
+	public int run(List<String> paths, int threads) throws InterruptedException, IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		//Workers without a log of their own help to read and enrich the other logs
+		ForkJoinPool split = paths.size() < threads ? new ForkJoinPool(threads) : null;
+		long start = System.currentTimeMillis();
+		int done = 0;
+		long commits = 0;
+		try {
+			List<Future<Result>> results = new ArrayList<Future<Result>>();
+			for (String path : paths) {
+				results.add(pool.submit(() -> analyse(path, split)));
+			}
+			//The results are written in the order of the logs, the statistic files do not contain the names
+			for (int i = 0; i < results.size(); i++) {
+				Result r;
+				try {
+					r = results.get(i).get();
+				} catch (ExecutionException e) {
+					System.err.println("Can't analyse " + paths.get(i) + ": " + e.getCause());
+					continue;
+				}
+				if (r.commits == 0) {
+					System.err.println("No commits found in " + r.path);
+					continue;
+				}
+				export.append(r.statistics, r.tableRow, r.series);
+				done++;
+				commits += r.commits;
+				System.out.println(String.format("[%d/%d] %s: %d commits in %d ms", i + 1, paths.size(), r.path,
+						r.commits, r.millis));
+			}
+		} finally {
+			pool.shutdownNow();
+			if (split != null)
+				split.shutdownNow();
+		}
+		long millis = Math.max(1, System.currentTimeMillis() - start);
+		System.out.println(String.format("%d logs, %d commits in %.1f s: %.1f logs/min, %d commits/s", done, commits,
+				millis / 1000.0, done * 60000.0 / millis, commits * 1000 / millis));
+		return done;
+	}
+
+	/**
+	 * @param args: Options and locations of the logs, a directory stands for all files it contains
+	 */
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		String regex = "RegularExpressions.csv";
+		String statistics = StatisticsExport.STATISTICS;
+		String table = StatisticsExport.TABLE;
+		String series = StatisticsExport.SERIES;
+		boolean fileLevel = false;
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-regex":
+				regex = args[++i];
+				break;
+			case "-statistics":
+				statistics = args[++i];
+				break;
+			case "-table":
+				table = args[++i];
+				break;
+			case "-series":
+				series = args[++i];
+				break;
+			case "-filelevel":
+				fileLevel = true;
+				break;
+			default:
+				File f = new File(args[i]);
+				if (f.isDirectory()) {
+					File[] files = f.listFiles(File::isFile);
+					Arrays.sort(files);
+					for (File file : files) {
+						paths.add(file.getPath());
+					}
+				} else {
+					paths.add(args[i]);
+				}
+			}
+		}
+		if (paths.isEmpty()) {
+			System.err.println(
+					"Usage: java cli.BatchAnalyzer [-threads n] [-regex file] [-statistics file] [-table file] [-series file] [-filelevel] logs...");
+			System.exit(1);
+		}
+		new BatchAnalyzer(regex, new StatisticsExport(statistics, table, series), fileLevel).run(paths, threads);
+	}
+}
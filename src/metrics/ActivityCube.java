@@ -0,0 +1,692 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.Days;
+
+import model.ChangeTemplate;
+import model.ColumnarLog;
+import model.Dictionaries;
+import model.EnrichedChange;
+import model.Log;
+import model.LogEntry;
+import model.StringDictionary;
+
+/**
+ * Author x activity type x day cube of a log, stored as prefix sums
+ * Built once when a log is loaded. Afterwards the number of commits (commit level, by commit type) or file changes
+ * (file level, by activity label) of any date range, author subset and type subset is calculated with array
+ * arithmetic instead of scanning the log:
+ * - per type: dense prefix sums over all days of the project, O(1) per query
+ * - per author and type: prefix sums over the days on which the author was active, O(log days) per query
+ * Days are calendar days in the default time zone, day 0 is the day of the first commit.
+ * Weeks, months and percentages of the project duration are derived from the days (see getWeekBuckets,
+ * getMonthBuckets and getPercentBuckets).
+ * The commits themselves are indexed by day, getCommits returns the commits of a date range.
+ * A cube can also be restored from the counts per day that were stored with a log, e.g. in a snapshot.
+ * @author Paul Kneringer
+ */
+public class ActivityCube {
+	private static final long DAY = 24L * 60 * 60 * 1000;
+
+	private List<String> authors;
+	private List<String> labels;
+	//Labels in order of their first appearance as commit type and as file label
+	private int[] commitTypes;
+	private int[] fileLabels;
+	private DateTime first;
+	private DateTime last;
+	private LocalDate firstDay;
+	private int days;
+
+	//[label][day + 1]: number of commits / file changes before the day
+	private int[][] commitPrefix;
+	private int[][] changePrefix;
+	//[author][label][i]: active days of the author and the number of commits / changes up to and including that day
+	private int[][][] commitDays;
+	private int[][][] commitSums;
+	private int[][][] changeDays;
+	private int[][][] changeSums;
+	//Commit index by time: commits (index in the log) sorted by day, dayStart[d] is the first commit of day d
+	private int[] commitsByDay;
+	private int[] dayStart;
+	//Log of a restored cube until the counts per author are calculated (see authorSums)
+	private volatile ColumnarLog pending;
+	//Buckets of the days, calculated on first use
+	private int[] dayBuckets;
+	private int[] weekBuckets;
+	private int[] monthBuckets;
+
+	/**
+	 * Builds the cube in one pass over the log
+	 * @param log: Enriched log
+	 */
+	public ActivityCube(Log log) {
+		Columns c = log instanceof ColumnarLog ? new Columns((ColumnarLog) log) : new Columns(log);
+		authors = Collections.unmodifiableList(c.authors);
+		labels = Collections.unmodifiableList(c.labels);
+		int n = c.commits;
+		int nLabels = labels.size();
+		commitPrefix = new int[nLabels][];
+		changePrefix = new int[nLabels][];
+		if (n == 0) {
+			commitTypes = new int[0];
+			fileLabels = new int[0];
+			commitsByDay = new int[0];
+			dayStart = new int[1];
+			authorSums(c, new int[0]);
+			return;
+		}
+
+		//Day of every commit relative to the first day, first appearance of the labels
+		long minTime = Long.MAX_VALUE;
+		long maxTime = Long.MIN_VALUE;
+		long minDay = Long.MAX_VALUE;
+		long maxDay = Long.MIN_VALUE;
+		long[] epochDays = new long[n];
+		for (int i = 0; i < n; i++) {
+			long t = c.times[i];
+			minTime = Math.min(minTime, t);
+			maxTime = Math.max(maxTime, t);
+			epochDays[i] = epochDay(t);
+			minDay = Math.min(minDay, epochDays[i]);
+			maxDay = Math.max(maxDay, epochDays[i]);
+		}
+		first = new DateTime(minTime);
+		last = new DateTime(maxTime);
+		firstDay = first.toLocalDate();
+		days = (int) (maxDay - minDay + 1);
+		int[] day = new int[n];
+		for (int i = 0; i < n; i++) {
+			day[i] = (int) (epochDays[i] - minDay);
+		}
+		commitTypes = firstAppearance(c.types, 0, n, nLabels);
+		fileLabels = firstAppearance(c.changeLabels, 0, c.changeStart[n], nLabels);
+
+		//Dense counts per label and day
+		for (int t = 0; t < nLabels; t++) {
+			commitPrefix[t] = new int[days + 1];
+			changePrefix[t] = new int[days + 1];
+		}
+		for (int i = 0; i < n; i++) {
+			commitPrefix[c.types[i]][day[i] + 1]++;
+			for (int k = c.changeStart[i]; k < c.changeStart[i + 1]; k++) {
+				if (c.changeLabels[k] >= 0)
+					changePrefix[c.changeLabels[k]][day[i] + 1]++;
+			}
+		}
+		for (int t = 0; t < nLabels; t++) {
+			for (int d = 1; d <= days; d++) {
+				commitPrefix[t][d] += commitPrefix[t][d - 1];
+				changePrefix[t][d] += changePrefix[t][d - 1];
+			}
+		}
+
+		//Commits sorted by day (stable counting sort)
+		commitsByDay = countingSort(identity(n), day, days);
+		dayStart = new int[days + 1];
+		for (int d : day) {
+			dayStart[d + 1]++;
+		}
+		for (int d = 1; d <= days; d++) {
+			dayStart[d] += dayStart[d - 1];
+		}
+		authorSums(c, day);
+	}
+
+	/**
+	 * Restores a cube from counts that were stored with the log (see snapshot.SnapshotWriter), the log is not scanned
+	 * The counts per author are only calculated from the log if they are used (count per author, matrix).
+	 * @param log: Log the counts belong to, the author and label ids of the log are used
+	 * @param first: Date of the first commit, null if the log is empty
+	 * @param last: Date of the last commit
+	 * @param commitTypes: Commit types (label ids) in order of their first appearance
+	 * @param fileLabels: File labels (label ids) in order of their first appearance
+	 * @param commitCounts: [label][day] number of commits of the type per day
+	 * @param changeCounts: [label][day] number of file changes with the label per day
+	 * @param commitsByDay: Commits sorted by day, commits of one day in order of the log (see getCommits)
+	 */
+	public ActivityCube(ColumnarLog log, DateTime first, DateTime last, int[] commitTypes, int[] fileLabels,
+			int[][] commitCounts, int[][] changeCounts, int[] commitsByDay) {
+		authors = Collections.unmodifiableList(log.getAuthors().toList());
+		labels = Collections.unmodifiableList(log.getLabels().toList());
+		int nLabels = labels.size();
+		if (commitCounts.length != nLabels || changeCounts.length != nLabels)
+			throw new IllegalArgumentException("Counts of " + nLabels + " labels expected");
+		this.first = first;
+		this.last = last;
+		this.commitTypes = commitTypes;
+		this.fileLabels = fileLabels;
+		this.commitsByDay = commitsByDay;
+		firstDay = first == null ? null : first.toLocalDate();
+		days = first == null || nLabels == 0 ? 0 : commitCounts[0].length;
+		commitPrefix = new int[nLabels][];
+		changePrefix = new int[nLabels][];
+		dayStart = new int[days + 1];
+		for (int t = 0; t < nLabels; t++) {
+			commitPrefix[t] = prefix(commitCounts[t]);
+			changePrefix[t] = prefix(changeCounts[t]);
+			for (int d = 0; d < days; d++) {
+				dayStart[d + 1] += commitCounts[t][d];
+			}
+		}
+		for (int d = 1; d <= days; d++) {
+			dayStart[d] += dayStart[d - 1];
+		}
+		if (dayStart[days] != commitsByDay.length || commitsByDay.length != log.size())
+			throw new IllegalArgumentException("Counts do not match the commits of the log");
+		pending = log;
+	}
+
+	private int[] prefix(int[] counts) {
+		if (counts.length != days)
+			throw new IllegalArgumentException("Counts of " + days + " days expected");
+		int[] ret = new int[days + 1];
+		for (int d = 0; d < days; d++) {
+			ret[d + 1] = ret[d] + counts[d];
+		}
+		return ret;
+	}
+
+	/**
+	 * Calculates the counts per author of a restored cube from its log on first use
+	 */
+	private void authorSums() {
+		if (pending == null)
+			return;
+		synchronized (this) {
+			if (pending == null)
+				return;
+			Columns c = new Columns(pending);
+			int[] day = new int[c.commits];
+			long minDay = c.commits == 0 ? 0 : epochDay(first.getMillis());
+			for (int i = 0; i < c.commits; i++) {
+				day[i] = clamp((int) (epochDay(c.times[i]) - minDay));
+			}
+			authorSums(c, day);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Groups the commits by author (stable counting sort of commitsByDay) and sums them up per author and label
+	 * @param day: day of every commit
+	 */
+	private void authorSums(Columns c, int[] day) {
+		int n = c.commits;
+		int nLabels = labels.size();
+		commitDays = new int[authors.size()][nLabels][];
+		commitSums = new int[authors.size()][nLabels][];
+		changeDays = new int[authors.size()][nLabels][];
+		changeSums = new int[authors.size()][nLabels][];
+		int[] order = countingSort(commitsByDay, c.authorIds, authors.size());
+		Sums commitsOfAuthor = new Sums(nLabels);
+		Sums changesOfAuthor = new Sums(nLabels);
+		int i = 0;
+		while (i < n) {
+			int author = c.authorIds[order[i]];
+			commitsOfAuthor.reset();
+			changesOfAuthor.reset();
+			for (; i < n && c.authorIds[order[i]] == author; i++) {
+				int commit = order[i];
+				commitsOfAuthor.add(c.types[commit], day[commit]);
+				for (int k = c.changeStart[commit]; k < c.changeStart[commit + 1]; k++) {
+					if (c.changeLabels[k] >= 0)
+						changesOfAuthor.add(c.changeLabels[k], day[commit]);
+				}
+			}
+			for (int t = 0; t < nLabels; t++) {
+				commitDays[author][t] = commitsOfAuthor.days(t);
+				commitSums[author][t] = commitsOfAuthor.sums(t);
+				changeDays[author][t] = changesOfAuthor.days(t);
+				changeSums[author][t] = changesOfAuthor.sums(t);
+			}
+		}
+	}
+
+	/**
+	 * @return Calendar day of the time in the default time zone, counted from 1970-01-01
+	 */
+	private static long epochDay(long t) {
+		return Math.floorDiv(t + DateTimeZone.getDefault().getOffset(t), DAY);
+	}
+
+	private static int[] firstAppearance(int[] values, int from, int to, int range) {
+		boolean[] seen = new boolean[range];
+		int[] ret = new int[range];
+		int n = 0;
+		for (int i = from; i < to; i++) {
+			if (values[i] >= 0 && !seen[values[i]]) {
+				seen[values[i]] = true;
+				ret[n++] = values[i];
+			}
+		}
+		return Arrays.copyOf(ret, n);
+	}
+
+	private static int[] identity(int n) {
+		int[] ret = new int[n];
+		for (int i = 0; i < n; i++) {
+			ret[i] = i;
+		}
+		return ret;
+	}
+
+	/**
+	 * Stable counting sort of the indices by their key
+	 */
+	private static int[] countingSort(int[] indices, int[] keys, int range) {
+		int[] start = new int[range + 1];
+		for (int i : indices) {
+			start[keys[i] + 1]++;
+		}
+		for (int k = 1; k <= range; k++) {
+			start[k] += start[k - 1];
+		}
+		int[] ret = new int[indices.length];
+		for (int i : indices) {
+			ret[start[keys[i]]++] = i;
+		}
+		return ret;
+	}
+
+	/**
+	 * Collects the cumulative counts per label of one author, the days have to be added in ascending order
+	 */
+	private static class Sums {
+		private int[][] days;
+		private int[][] sums;
+		private int[] size;
+
+		private Sums(int labels) {
+			days = new int[labels][4];
+			sums = new int[labels][4];
+			size = new int[labels];
+		}
+
+		private void reset() {
+			Arrays.fill(size, 0);
+		}
+
+		private void add(int label, int day) {
+			int n = size[label];
+			if (n > 0 && days[label][n - 1] == day) {
+				sums[label][n - 1]++;
+				return;
+			}
+			if (n == days[label].length) {
+				days[label] = Arrays.copyOf(days[label], n * 2);
+				sums[label] = Arrays.copyOf(sums[label], n * 2);
+			}
+			days[label][n] = day;
+			sums[label][n] = n == 0 ? 1 : sums[label][n - 1] + 1;
+			size[label]++;
+		}
+
+		private int[] days(int label) {
+			return Arrays.copyOf(days[label], size[label]);
+		}
+
+		private int[] sums(int label) {
+			return Arrays.copyOf(sums[label], size[label]);
+		}
+	}
+
+	/**
+	 * Commit and change columns of a log with local author and label indices
+	 */
+	private static class Columns {
+		private List<String> authors;
+		private List<String> labels;
+		private int commits;
+		private long[] times;
+		private int[] authorIds;
+		private int[] types;
+		private int[] changeStart;
+		//-1 for changes without activity label
+		private int[] changeLabels;
+
+		private Columns(ColumnarLog log) {
+			authors = log.getAuthors().toList();
+			labels = log.getLabels().toList();
+			commits = log.size();
+			times = new long[commits];
+			authorIds = new int[commits];
+			types = new int[commits];
+			changeStart = new int[commits + 1];
+			changeLabels = new int[log.getChangeCount()];
+			for (int i = 0; i < commits; i++) {
+				times[i] = log.getTime(i);
+				authorIds[i] = log.getAuthorId(i);
+				types[i] = log.getTypeId(i);
+				changeStart[i + 1] = log.getChangeEnd(i);
+			}
+			for (int k = 0; k < changeLabels.length; k++) {
+				changeLabels[k] = log.getLabelId(k);
+			}
+		}
+
+		private Columns(Log log) {
+			labels = new ArrayList<String>();
+			commits = log.size();
+			times = new long[commits];
+			authorIds = new int[commits];
+			types = new int[commits];
+			changeStart = new int[commits + 1];
+			changeLabels = new int[16];
+			StringDictionary authorNames = new StringDictionary();
+			//Id in Dictionaries.LABELS -> local index + 1
+			int[] labelIndex = new int[Dictionaries.LABELS.size()];
+			int i = 0;
+			int k = 0;
+			for (LogEntry l : log.getAllEntries()) {
+				times[i] = l.getDate().getMillis();
+				authorIds[i] = authorNames.intern(l.getAuthor());
+				for (ChangeTemplate c : l.getChangeList()) {
+					if (k == changeLabels.length)
+						changeLabels = Arrays.copyOf(changeLabels, k * 2);
+					if (c instanceof EnrichedChange) {
+						int label = ((EnrichedChange) c).getActivityLabelId();
+						if (label >= labelIndex.length)
+							labelIndex = Arrays.copyOf(labelIndex, Dictionaries.LABELS.size());
+						changeLabels[k++] = local(labelIndex, label);
+					} else {
+						changeLabels[k++] = -1;
+					}
+				}
+				int type = l.getTypeId();
+				if (type >= labelIndex.length)
+					labelIndex = Arrays.copyOf(labelIndex, Dictionaries.LABELS.size());
+				types[i] = local(labelIndex, type);
+				changeStart[++i] = k;
+			}
+			authors = authorNames.toList();
+		}
+
+		private int local(int[] labelIndex, int id) {
+			if (labelIndex[id] == 0) {
+				labels.add(Dictionaries.LABELS.get(id));
+				labelIndex[id] = labels.size();
+			}
+			return labelIndex[id] - 1;
+		}
+	}
+
+	/**
+	 * @return Number of days between the first and the last commit (inclusive)
+	 */
+	public int size() {
+		return days;
+	}
+
+	/**
+	 * @return Day of the first commit (day 0)
+	 */
+	public LocalDate getFirstDay() {
+		return firstDay;
+	}
+
+	/**
+	 * @return Date of the first commit, null if the log is empty
+	 */
+	public DateTime getFirst() {
+		return first;
+	}
+
+	/**
+	 * @return Date of the last commit, null if the log is empty
+	 */
+	public DateTime getLast() {
+		return last;
+	}
+
+	/**
+	 * @return Day of the date relative to the first day
+	 */
+	public int dayOf(DateTime date) {
+		return (int) (epochDay(date.getMillis()) - epochDay(first.getMillis()));
+	}
+
+	public List<String> getAuthors() {
+		return authors;
+	}
+
+	/**
+	 * @return Activity labels, the indices are used by the count methods
+	 */
+	public List<String> getLabels() {
+		return labels;
+	}
+
+	/**
+	 * @param fileLevel: true for the labels of file changes, false for the commit types
+	 * @return Labels that occur on the level, in order of their first appearance in the log
+	 */
+	public List<String> getTypes(boolean fileLevel) {
+		List<String> ret = new ArrayList<String>();
+		for (int t : fileLevel ? fileLabels : commitTypes) {
+			ret.add(labels.get(t));
+		}
+		return ret;
+	}
+
+	/**
+	 * @param fileLevel: true: number of file changes with the label, false: number of commits of the type
+	 * @param from: first day (inclusive)
+	 * @param to: last day (exclusive)
+	 */
+	public int count(int label, boolean fileLevel, int from, int to) {
+		int[] prefix = fileLevel ? changePrefix[label] : commitPrefix[label];
+		return prefix[clamp(to)] - prefix[clamp(from)];
+	}
+
+	/**
+	 * Number of commits or file changes of one author
+	 */
+	public int count(int author, int label, boolean fileLevel, int from, int to) {
+		authorSums();
+		int[] d = fileLevel ? changeDays[author][label] : commitDays[author][label];
+		int[] s = fileLevel ? changeSums[author][label] : commitSums[author][label];
+		return before(d, s, to) - before(d, s, from);
+	}
+
+	/**
+	 * Number of commits or file changes of a subset of the authors and labels
+	 * @param authors: indices of the authors, null for all authors
+	 * @param labels: indices of the labels
+	 */
+	public int count(int[] authors, int[] labels, boolean fileLevel, int from, int to) {
+		int ret = 0;
+		for (int t : labels) {
+			if (authors == null) {
+				ret += count(t, fileLevel, from, to);
+			} else {
+				for (int a : authors) {
+					ret += count(a, t, fileLevel, from, to);
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Commits of a date range, e.g. to display the commits of a data point
+	 * @param from: first day (inclusive)
+	 * @param to: last day (exclusive)
+	 * @return indices of the commits in the log, sorted by day (commits of one day in order of the log)
+	 */
+	public int[] getCommits(int from, int to) {
+		return Arrays.copyOfRange(commitsByDay, dayStart[clamp(from)], dayStart[Math.max(clamp(from), clamp(to))]);
+	}
+
+	private int clamp(int day) {
+		return Math.max(0, Math.min(days, day));
+	}
+
+	/**
+	 * Cumulative count of the days before the given day
+	 */
+	private static int before(int[] days, int[] sums, int day) {
+		int i = Arrays.binarySearch(days, day);
+		if (i < 0)
+			i = -i - 1;
+		return i == 0 ? 0 : sums[i - 1];
+	}
+
+	/**
+	 * Workload matrix of a date range, e.g. to calculate the KPIs of a zoomed area
+	 * Contains the authors and commit types of the commits in the range
+	 * @param from: first day (inclusive)
+	 * @param to: last day (exclusive)
+	 */
+	public WorkloadMatrix matrix(int from, int to) {
+		List<String> rangeAuthors = new ArrayList<String>();
+		List<int[]> rows = new ArrayList<int[]>();
+		for (int a = 0; a < authors.size(); a++) {
+			int commits = 0;
+			int[] row = new int[labels.size()];
+			for (int t = 0; t < labels.size(); t++) {
+				commits += count(a, t, false, from, to);
+				row[t] = count(a, t, true, from, to);
+			}
+			if (commits > 0) {
+				rangeAuthors.add(authors.get(a));
+				rows.add(row);
+			}
+		}
+		int[] types = new int[commitTypes.length];
+		int n = 0;
+		for (int t : commitTypes) {
+			if (count(t, false, from, to) > 0)
+				types[n++] = t;
+		}
+		return new WorkloadMatrix(rangeAuthors, new ArrayList<String>(labels), Arrays.copyOf(types, n),
+				rows.toArray(new int[rows.size()][]));
+	}
+
+	/**
+	 * Counts per bucket, the buckets are consecutive ranges of days (see get...Buckets)
+	 * @param bucketOfDay: bucket of every day, ascending
+	 * @return number of commits or changes per bucket
+	 */
+	public int[] counts(int label, boolean fileLevel, int[] bucketOfDay) {
+		int[] ret = new int[days == 0 ? 0 : bucketOfDay[days - 1] + 1];
+		int start = 0;
+		for (int d = 1; d <= days; d++) {
+			if (d == days || bucketOfDay[d] != bucketOfDay[start]) {
+				ret[bucketOfDay[start]] += count(label, fileLevel, start, d);
+				start = d;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Curves of all types of a level as they are displayed and logged, only buckets with changes are stored
+	 * @param bucketOfDay: bucket of every day, ascending
+	 * @return number of commits or changes per type and bucket
+	 */
+	public HashMap<String, HashMap<Integer, Integer>> curves(boolean fileLevel, int[] bucketOfDay) {
+		HashMap<String, HashMap<Integer, Integer>> ret = new HashMap<String, HashMap<Integer, Integer>>();
+		for (int label : fileLevel ? fileLabels : commitTypes) {
+			int[] counts = counts(label, fileLevel, bucketOfDay);
+			HashMap<Integer, Integer> curve = new HashMap<Integer, Integer>();
+			for (int bucket = 0; bucket < counts.length; bucket++) {
+				if (counts[bucket] > 0)
+					curve.put(bucket, counts[bucket]);
+			}
+			ret.put(labels.get(label), curve);
+		}
+		return ret;
+	}
+
+	/*
+	 * The day, week and month of every day are calculated once per cube in O(days), the arrays are shared by all
+	 * callers and must not be modified
+	 */
+
+	/**
+	 * @return bucket of every day, the days themselves
+	 */
+	public int[] getDayBuckets() {
+		if (dayBuckets == null) {
+			int[] ret = new int[days];
+			for (int d = 0; d < days; d++) {
+				ret[d] = d;
+			}
+			dayBuckets = ret;
+		}
+		return dayBuckets;
+	}
+
+	/**
+	 * Weeks start on Monday, week 0 contains the first day
+	 * @return week of every day
+	 */
+	public int[] getWeekBuckets() {
+		if (weekBuckets == null) {
+			int[] ret = new int[days];
+			int offset = firstDay == null ? 0 : firstDay.getDayOfWeek() - 1;
+			for (int d = 0; d < days; d++) {
+				ret[d] = (d + offset) / 7;
+			}
+			weekBuckets = ret;
+		}
+		return weekBuckets;
+	}
+
+	/**
+	 * Months are counted from the first day, e.g. from the 15th to the 14th of the next month
+	 * Note: The time of the day is not taken into account, commits on the day of the month of the first commit are
+	 * always assigned to the new month.
+	 * @return month of every day
+	 */
+	public int[] getMonthBuckets() {
+		if (monthBuckets == null) {
+			//The days are rolled up month by month, only the month boundaries are calculated with dates
+			int[] ret = new int[days];
+			int month = 0;
+			int next = days == 0 ? 0 : Days.daysBetween(firstDay, firstDay.plusMonths(1)).getDays();
+			for (int d = 0; d < days; d++) {
+				while (d >= next) {
+					month++;
+					next = Days.daysBetween(firstDay, firstDay.plusMonths(month + 1)).getDays();
+				}
+				ret[d] = month;
+			}
+			monthBuckets = ret;
+		}
+		return monthBuckets;
+	}
+
+	/**
+	 * Splits the duration of the project (first to last commit) into steps, e.g. 100 percentages
+	 * Note: The days are counted as calendar days, not as full 24 hours since the first commit. The day of the last
+	 * commit can therefore exceed the duration, it is assigned to the last step.
+	 * @param steps: number of steps
+	 * @return step of every day
+	 */
+	public int[] getPercentBuckets(int steps) {
+		int[] ret = new int[days];
+		if (days == 0)
+			return ret;
+		long duration = last.getMillis() - first.getMillis();
+		double durationDays = (double) duration / (double) DAY;
+		double step;
+		if (durationDays >= steps)
+			step = durationDays / steps;
+		else
+			step = duration / durationDays;
+		for (int d = 0; d < days; d++) {
+			ret[d] = Math.min(steps - 1, (int) Math.floor((double) d / step));
+		}
+		return ret;
+	}
+}
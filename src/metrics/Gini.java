@@ -23,7 +23,7 @@
 
 package metrics;
 
-
+import java.util.Arrays;
 
 /**
  * 
@@ -37,6 +37,9 @@ package metrics;
 public class Gini
 {
 	// Gini is in [0.0,1.0]
+	
+	// Largest value range that is sorted with a counting sort
+	private static final int COUNTING_SORT_RANGE = 1 << 16;
 
 	/**
 	 * Computes Gini coefficient using a provided array of integers and a boolean value that indicates 
@@ -68,19 +71,94 @@ public class Gini
 	 */
 	public static <T extends Number & Comparable<T>> double compute( SortedEnumeration<T> aOrderedCollection, boolean aCountZeros )
 	{
-		double ginisum = 0;
-		double sum = 0;
-		int count = aOrderedCollection.size();
-		long i = 1;
+		Accumulator lAcc = new Accumulator( aOrderedCollection.size(), aCountZeros );
+		
+		for ( T elem : aOrderedCollection.values() )
+		{
+			lAcc.add( elem.doubleValue() );
+		}
+		
+		return lAcc.result();
+	}
+
+	/**
+	 * Computes Gini coefficient of an array of ints without boxing the values.
+	 * The result is identical to compute( Integer[], boolean ).
+	 * Note: the array is sorted in place. Small value ranges are sorted with a counting sort.
+	 * @param aArrayOfVals  array of integers to perform calculations on, sorted ascending afterwards
+	 * @param aCountZeros  indicator whether to take into account zeros
+	 * @return the value of Gini coefficient for the given array
+	 */
+	public static double compute( int[] aArrayOfVals, boolean aCountZeros )
+	{
+		sort( aArrayOfVals );
+		
+		Accumulator lAcc = new Accumulator( aArrayOfVals.length, aCountZeros );
+		for ( int v : aArrayOfVals )
+			lAcc.add( v );
+		return lAcc.result();
+	}
+	
+	/**
+	 * Computes Gini coefficient of an array of longs without boxing the values.
+	 * The result is identical to compute( Long[], boolean ).
+	 * Note: the array is sorted in place.
+	 * @param aArrayOfVals  array of longs to perform calculations on, sorted ascending afterwards
+	 * @param aCountZeros  indicator whether to take into account zeros
+	 * @return the value of Gini coefficient for the given array
+	 */
+	public static double compute( long[] aArrayOfVals, boolean aCountZeros )
+	{
+		Arrays.sort( aArrayOfVals );
+		
+		Accumulator lAcc = new Accumulator( aArrayOfVals.length, aCountZeros );
+		for ( long v : aArrayOfVals )
+			lAcc.add( v );
+		return lAcc.result();
+	}
+	
+	/**
+	 * Computes Gini coefficient of an array of doubles without boxing the values.
+	 * The result is identical to compute( Double[], boolean ), Arrays.sort orders the values like Double.compareTo.
+	 * Note: the array is sorted in place.
+	 * @param aArrayOfVals  array of doubles to perform calculations on, sorted ascending afterwards
+	 * @param aCountZeros  indicator whether to take into account zeros
+	 * @return the value of Gini coefficient for the given array
+	 */
+	public static double compute( double[] aArrayOfVals, boolean aCountZeros )
+	{
+		Arrays.sort( aArrayOfVals );
+		
+		Accumulator lAcc = new Accumulator( aArrayOfVals.length, aCountZeros );
+		for ( double v : aArrayOfVals )
+			lAcc.add( v );
+		return lAcc.result();
+	}
+	
+	/**
+	 * Sums up the values of an ascending sequence, every value weighted by its rank.
+	 * All compute methods share it, ints and longs are widened to double like Number.doubleValue does.
+	 */
+	private static final class Accumulator
+	{
+		private final int count;
+		private final boolean countZeros;
+		private double ginisum = 0;
+		private double sum = 0;
+		private long i = 1;
 		
 		// auxiliaries
-		long skip = 0;
+		private long skip = 0;
 		
-		for ( T elem : aOrderedCollection.values() )
+		Accumulator( int aCount, boolean aCountZeros )
 		{
-			double lElem = elem.doubleValue();
-			
-			if ( aCountZeros || lElem != 0 )
+			count = aCount;
+			countZeros = aCountZeros;
+		}
+		
+		void add( double lElem )
+		{
+			if ( countZeros || lElem != 0 )
 			{
 				long off = 2 * i - count - skip - 1;
 				ginisum = ginisum + off * lElem;
@@ -92,9 +170,45 @@ public class Gini
 			i++;
 		}
 		
-		if ( sum != 0 )
-			return ginisum / (double)(count - skip) / sum;
-		else
-			return Double.NaN; // no occurrence recorded
+		double result()
+		{
+			if ( sum != 0 )
+				return ginisum / (double)(count - skip) / sum;
+			else
+				return Double.NaN; // no occurrence recorded
+		}
+	}
+	
+	/**
+	 * Sorts the array ascending, uses a counting sort if the range of the values is small compared to their number
+	 */
+	private static void sort( int[] aArrayOfVals )
+	{
+		if ( aArrayOfVals.length < 2 )
+			return;
+		int min = aArrayOfVals[0];
+		int max = aArrayOfVals[0];
+		for ( int v : aArrayOfVals )
+		{
+			if ( v < min )
+				min = v;
+			if ( v > max )
+				max = v;
+		}
+		long range = (long) max - min + 1;
+		if ( range > COUNTING_SORT_RANGE || range > 4L * aArrayOfVals.length )
+		{
+			Arrays.sort( aArrayOfVals );
+			return;
+		}
+		int[] counts = new int[(int) range];
+		for ( int v : aArrayOfVals )
+			counts[v - min]++;
+		int k = 0;
+		for ( int v = 0; v < counts.length; v++ )
+		{
+			for ( int c = counts[v]; c > 0; c-- )
+				aArrayOfVals[k++] = v + min;
+		}
 	}
 }
@@ -2,9 +2,8 @@ package metrics;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.stream.Stream;
 
-import model.ChangeTemplate;
-import model.EnrichedChange;
 import model.Log;
 import model.LogEntry;
  
@@ -19,11 +18,31 @@ public class Metrics {
 	// 1, if APTW(p, a,t) > 0;
 	// 0, otherwise.
 	private Log log;
+	private ArrayList<String> types = null;
+	private WorkloadMatrix matrix = null;
 
 	public Metrics(Log log) {
 		this.log = log;
 	}
 
+	/**
+	 * Uses a workload matrix that was already created, e.g. by MetricsAccumulator.snapshot()
+	 * @param matrix: Workload matrix of the project
+	 */
+	public Metrics(WorkloadMatrix matrix) {
+		this.matrix = matrix;
+	}
+
+	/**
+	 * Aggregates the metrics while the entries pass through the stream, e.g. while they are read and enriched
+	 * Only the counts are kept, so the log does not have to fit into memory
+	 * @param entries: Stream of enriched log entries, may be parallel
+	 */
+	public Metrics(Stream<? extends LogEntry> entries) {
+		matrix = entries.collect(MetricsAccumulator::new, MetricsAccumulator::accept, MetricsAccumulator::combine)
+				.snapshot();
+	}
+
 	public boolean APTI(String author, String type, HashMap<String, HashMap<String, Integer>> ATW) {
 		boolean ret = false;
 		Integer val = 0;
@@ -42,7 +61,8 @@ public class Metrics {
 	// input in the software
 	public int PTW(String type, HashMap<String, HashMap<String, Integer>> ATW) {
 		int sum = 0;
-		for (String author : getAuthors()) {
+		// authors without changes are not part of ATW and do not contribute
+		for (String author : ATW.keySet()) {
 			if (APTI(author, type, ATW)) {
 				sum += ATW.get(author).get(type);
 			}
@@ -102,7 +122,7 @@ public class Metrics {
 
 	public int PTI(String type, HashMap<String, HashMap<String, Integer>> ATW) {
 		int ret = 0;
-		for (String author : getAuthors()) {
+		for (String author : ATW.keySet()) {
 			if (APTI(author, type, ATW)) {
 				ret += 1;
 			}
@@ -113,13 +133,13 @@ public class Metrics {
 	// Implementation of NTP is different in the paper, but I already implemented
 	// the required base functionality
 	public int NTP() {
-		return getTypes().size();
+		return getMatrix().NTP();
 	}
 
 	// Implementation of NAP is different in the paper, but I already implemented
 	// the required base functionality
 	public int NAP() {
-		return getAuthors().size();
+		return getMatrix().NAP();
 	}
 
 	// Relative involvement of authors on type (e.g. 5 out of 10 authors were
@@ -156,72 +176,67 @@ public class Metrics {
 		return ret;
 	}
 
+	/**
+	 * The author x type matrix is built once per Metrics object, the following KPIs are derived from it
+	 * @return Workload matrix of the log, stream or accumulator
+	 */
+	public WorkloadMatrix getMatrix() {
+		if (matrix == null)
+			matrix = WorkloadMatrix.of(log);
+		return matrix;
+	}
+
+	public int PW() {
+		return getMatrix().PW();
+	}
+
+	public int PTW(String type) {
+		return getMatrix().PTW(type);
+	}
+
+	public double RPTW(String type) {
+		return getMatrix().RPTW(type);
+	}
+
+	public int PTI(String type) {
+		return getMatrix().PTI(type);
+	}
+
+	public double RPTI(String type) {
+		return getMatrix().RPTI(type);
+	}
+
+	public double PWS() {
+		return getMatrix().PWS();
+	}
+
+	public double RPWS() {
+		return getMatrix().RPWS();
+	}
+
+	public double PIS() {
+		return getMatrix().PIS();
+	}
+
+	public double RPIS() {
+		return getMatrix().RPIS();
+	}
+
 	/**
 	 * Creates a structure that contains the ATW value of every author of the project.
 	 * Structure: Author, Type, nr. of changes
 	 * @return Hashmap storing the Author and another HashMap storing type and number of file changes of that type
 	 */
 	public HashMap<String, HashMap<String, Integer>> getATW() {
-		HashMap<String, HashMap<String, Integer>> ATW = new HashMap<String, HashMap<String, Integer>>();
-		if (log != null) {
-
-			HashMap<String, Integer> innerList = new HashMap<String, Integer>();
-			Integer currVal = 0;
-			String author;
-			String type;
-			for (LogEntry l : log.getAllEntries()) {
-				// System.out.println(l);
-				author = l.getAuthor();
-				for (ChangeTemplate c : l.getChangeList()) {
-					type = ((EnrichedChange) c).getActivityLabel();
-					if (ATW.containsKey(author)) {
-						innerList = ATW.get(author);
-					} else {
-						innerList = new HashMap<String, Integer>();
-					}
-					if (innerList.containsKey(type)) {
-						currVal = innerList.get(type);
-					} else {
-						currVal = 0;
-					}
-					currVal += 1;
-					innerList.put(type, currVal);
-					ATW.put(author, innerList);
-				}
-			}
-		}
-		return ATW;
+		return getMatrix().toATW();
 	}
 
-	private ArrayList<String> getAuthors() {
-		ArrayList<String> authors = new ArrayList<String>();
-		if (log != null) {
-			for (LogEntry l : log.getAllEntries()) {
-				if (authors.contains(l.getAuthor()) == false) {
-					authors.add(l.getAuthor());
-				}
-			}
-		}
-		return authors;
-	}
-	
 	private ArrayList<String> getTypes() {
-		ArrayList<String> categories = new ArrayList<String>();
-		if (log != null) {
-			for (LogEntry l : log.getAllEntries()) {
-				if (!categories.contains(l.getType())) {
-					categories.add(l.getType());
-					// if (l.getType() == "")
-					// System.out.println("yi");
-				}
-			}
-			// laneHeight = (int) (canvas.getHeight() / map.keySet().size());
-			// laneHeight = (int)(getHeight()*boxHeightScaling) / map.keySet().size();
-			// System.out.println("Numvber of different things: " + map.keySet().size() + "
-			// - HEIGHT: " + laneHeight);
-		}
-		return categories;
+		if (types == null)
+			types = new ArrayList<String>(getMatrix().getTypes());
+		return types;
 	}
+
 	/**
 	 * // APTW(p, a,t) = number of touches to files of activity type t by author a
 	 * for // project p over its entire history. - Vasilescu et al. // APT I that
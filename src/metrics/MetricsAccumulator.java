@@ -0,0 +1,310 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import model.ChangeTemplate;
+import model.ColumnarLog;
+import model.Dictionaries;
+import model.EnrichedChange;
+import model.LogEntry;
+import model.StringDictionary;
+
+/**
+ * Collects the workload of a project commit by commit
+ * Every accepted commit updates the ATW counts, the workload and involvement per label and the number of commits
+ * per author and commit type, so adding new commits costs O(changes of the commits) instead of O(history).
+ * snapshot() creates a WorkloadMatrix of the current state, the KPIs (including the Gini values) are derived from it.
+ * Authors are kept in a dictionary of the accumulator, the labels are looked up by their ids in Dictionaries.LABELS.
+ * Commits of a ColumnarLog are accepted by their index, the ids of the log are translated once per author and label.
+ * Commits can also be removed again, which allows sliding time windows (see WindowedMetrics).
+ * The accumulator is not thread safe, parallel streams collect into several accumulators and combine them.
+ * @author Paul Kneringer
+ */
+public class MetricsAccumulator {
+	//Authors by their local index, in order of appearance
+	private StringDictionary authorNames = new StringDictionary();
+	//Id in Dictionaries.LABELS -> local index + 1 (0 = not seen yet)
+	private int[] labelIndex = new int[16];
+	//Local indices in order of appearance
+	private int[] labelIds = new int[16];
+	private int authorCount = 0;
+	private int labelCount = 0;
+	//Log of the commits accepted by index, its author and label ids -> local index + 1
+	private ColumnarLog source;
+	private int[] sourceAuthors = new int[0];
+	private int[] sourceLabels = new int[0];
+
+	//Number of file changes per author (local index) and label (local index)
+	private int[][] workload = new int[16][];
+	//Number of commits per author and per commit type
+	private int[] authorCommits = new int[16];
+	private int[] typeCommits = new int[16];
+	//Labels in the order of their first appearance as commit type
+	private int[] typeOrder = new int[16];
+	private int typeCount = 0;
+	//Per label: PTW, PTI
+	private int[] typeWorkload = new int[16];
+	private int[] involvement = new int[16];
+	private int total = 0;
+	private int commits = 0;
+	//Number of authors and commit types with at least one commit
+	private int activeAuthors = 0;
+	private int activeTypes = 0;
+
+	/**
+	 * Adds the changes of one commit to the counts
+	 * @param l: Enriched log entry
+	 */
+	public void accept(LogEntry l) {
+		update(l, 1);
+	}
+
+	/**
+	 * Removes the changes of a commit that was accepted before, e.g. when it leaves a time window
+	 * @param l: Enriched log entry that was passed to accept
+	 */
+	public void remove(LogEntry l) {
+		update(l, -1);
+	}
+
+	private void update(LogEntry l, int sign) {
+		int author = author(l.getAuthor());
+		addCommits(author, sign);
+		for (ChangeTemplate c : l.getChangeList()) {
+			add(author, label(((EnrichedChange) c).getActivityLabelId()), sign);
+		}
+		addType(label(l.getTypeId()), sign);
+		commits += sign;
+	}
+
+	/**
+	 * Adds the changes of one commit of a columnar log, no LogEntry is created
+	 * Changes without activity label are left out.
+	 * @param log: Enriched log
+	 * @param commit: Index of the commit in the log
+	 */
+	public void accept(ColumnarLog log, int commit) {
+		update(log, commit, 1);
+	}
+
+	/**
+	 * Removes a commit that was accepted before by its index
+	 * @param log: Log that was passed to accept
+	 * @param commit: Index of the commit in the log
+	 */
+	public void remove(ColumnarLog log, int commit) {
+		update(log, commit, -1);
+	}
+
+	private void update(ColumnarLog log, int i, int sign) {
+		if (log != source) {
+			source = log;
+			sourceAuthors = new int[log.getAuthors().size()];
+			sourceLabels = new int[log.getLabels().size()];
+		}
+		int author = sourceAuthor(log.getAuthorId(i));
+		addCommits(author, sign);
+		for (int c = log.getChangeStart(i); c < log.getChangeEnd(i); c++) {
+			int label = log.getLabelId(c);
+			if (label != ColumnarLog.NO_LABEL)
+				add(author, sourceLabel(label), sign);
+		}
+		addType(sourceLabel(log.getTypeId(i)), sign);
+		commits += sign;
+	}
+
+	private int sourceAuthor(int id) {
+		//The log may have grown since the last commit was accepted
+		if (id >= sourceAuthors.length)
+			sourceAuthors = Arrays.copyOf(sourceAuthors, source.getAuthors().size());
+		if (sourceAuthors[id] == 0)
+			sourceAuthors[id] = author(source.getAuthors().get(id)) + 1;
+		return sourceAuthors[id] - 1;
+	}
+
+	private int sourceLabel(int id) {
+		if (id >= sourceLabels.length)
+			sourceLabels = Arrays.copyOf(sourceLabels, source.getLabels().size());
+		if (sourceLabels[id] == 0)
+			sourceLabels[id] = label(Dictionaries.LABELS.intern(source.getLabels().get(id))) + 1;
+		return sourceLabels[id] - 1;
+	}
+
+	/**
+	 * Adds the counts of another accumulator, the authors and types of other are appended after the own ones
+	 * @param other: Accumulator of later commits
+	 */
+	public void combine(MetricsAccumulator other) {
+		int[] authors = new int[other.authorCount];
+		for (int a = 0; a < other.authorCount; a++) {
+			authors[a] = author(other.authorNames.get(a));
+			addCommits(authors[a], other.authorCommits[a]);
+		}
+		int[] labels = new int[other.labelCount];
+		for (int t = 0; t < other.labelCount; t++) {
+			labels[t] = label(other.labelIds[t]);
+		}
+		for (int i = 0; i < other.typeCount; i++) {
+			int t = other.typeOrder[i];
+			addType(labels[t], other.typeCommits[t]);
+		}
+		for (int a = 0; a < other.authorCount; a++) {
+			int[] row = other.workload[a];
+			for (int t = 0; t < row.length; t++) {
+				if (row[t] != 0)
+					add(authors[a], labels[t], row[t]);
+			}
+		}
+		commits += other.commits;
+	}
+
+	private void add(int author, int label, int count) {
+		int[] row = workload[author];
+		if (label >= row.length) {
+			row = Arrays.copyOf(row, Math.max(row.length * 2, label + 1));
+			workload[author] = row;
+		}
+		if (row[label] == 0)
+			involvement[label]++;
+		row[label] += count;
+		if (row[label] == 0)
+			involvement[label]--;
+		typeWorkload[label] += count;
+		total += count;
+	}
+
+	private void addCommits(int author, int count) {
+		if (authorCommits[author] == 0)
+			activeAuthors++;
+		authorCommits[author] += count;
+		if (authorCommits[author] == 0)
+			activeAuthors--;
+	}
+
+	private void addType(int label, int count) {
+		if (typeCommits[label] == 0) {
+			if (!contains(typeOrder, typeCount, label)) {
+				if (typeCount == typeOrder.length)
+					typeOrder = Arrays.copyOf(typeOrder, typeCount * 2);
+				typeOrder[typeCount++] = label;
+			}
+			activeTypes++;
+		}
+		typeCommits[label] += count;
+		if (typeCommits[label] == 0)
+			activeTypes--;
+	}
+
+	private static boolean contains(int[] array, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (array[i] == value)
+				return true;
+		}
+		return false;
+	}
+
+	private int author(String name) {
+		int a = authorNames.intern(name);
+		if (a == authorCount) {
+			if (authorCount == authorCommits.length) {
+				authorCommits = Arrays.copyOf(authorCommits, authorCount * 2);
+				workload = Arrays.copyOf(workload, authorCount * 2);
+			}
+			workload[authorCount++] = new int[labelIds.length];
+		}
+		return a;
+	}
+
+	private int label(int id) {
+		if (id >= labelIndex.length)
+			labelIndex = Arrays.copyOf(labelIndex, Math.max(labelIndex.length * 2, id + 1));
+		if (labelIndex[id] == 0) {
+			if (labelCount == labelIds.length) {
+				labelIds = Arrays.copyOf(labelIds, labelCount * 2);
+				typeCommits = Arrays.copyOf(typeCommits, labelCount * 2);
+				typeWorkload = Arrays.copyOf(typeWorkload, labelCount * 2);
+				involvement = Arrays.copyOf(involvement, labelCount * 2);
+			}
+			labelIds[labelCount] = id;
+			labelIndex[id] = ++labelCount;
+		}
+		return labelIndex[id] - 1;
+	}
+
+	/**
+	 * @return Number of accepted commits
+	 */
+	public int getCommits() {
+		return commits;
+	}
+
+	public int PW() {
+		return total;
+	}
+
+	public int NAP() {
+		return activeAuthors;
+	}
+
+	public int NTP() {
+		return activeTypes;
+	}
+
+	/*
+	 * The Gini KPIs are calculated from the maintained counts in O(types), without creating a snapshot
+	 * They return the same values as the KPIs of snapshot()
+	 */
+
+	public double PWS() {
+		return WorkloadMatrix.gini(typeWorkload, activeTypes());
+	}
+
+	public double RPWS() {
+		return WorkloadMatrix.gini(typeWorkload, activeTypes(), PW());
+	}
+
+	public double PIS() {
+		return WorkloadMatrix.gini(involvement, activeTypes());
+	}
+
+	public double RPIS() {
+		return WorkloadMatrix.gini(involvement, activeTypes(), NAP());
+	}
+
+	/**
+	 * @return Labels that are the commit type of at least one commit, in order of appearance
+	 */
+	private int[] activeTypes() {
+		int[] types = new int[activeTypes];
+		int n = 0;
+		for (int i = 0; i < typeCount; i++) {
+			if (typeCommits[typeOrder[i]] > 0)
+				types[n++] = typeOrder[i];
+		}
+		return types;
+	}
+
+	/**
+	 * Creates the workload matrix of the accepted commits, O(authors x types)
+	 * Only authors and commit types of at least one commit are part of the matrix
+	 * @return Matrix containing the current counts
+	 */
+	public WorkloadMatrix snapshot() {
+		List<String> authors = new ArrayList<String>();
+		List<int[]> rows = new ArrayList<int[]>();
+		for (int a = 0; a < authorCount; a++) {
+			if (authorCommits[a] > 0) {
+				authors.add(authorNames.get(a));
+				rows.add(Arrays.copyOf(workload[a], labelCount));
+			}
+		}
+		List<String> labels = new ArrayList<String>(labelCount);
+		for (int t = 0; t < labelCount; t++) {
+			labels.add(Dictionaries.LABELS.get(labelIds[t]));
+		}
+		return new WorkloadMatrix(authors, labels, activeTypes(), rows.toArray(new int[rows.size()][]),
+				Arrays.copyOf(typeWorkload, labelCount), Arrays.copyOf(involvement, labelCount), total);
+	}
+}
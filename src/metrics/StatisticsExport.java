@@ -0,0 +1,151 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the KPIs of analysed projects to the statistic files
+ * Statistics.csv contains the KPIs and the workload per activity type in percentages of time,
+ * Statistic_Table.txt contains one table row (LaTeX format) per project,
+ * KPISeries.csv contains the KPIs over sliding windows, kept apart so the layout of Statistics.csv stays unchanged.
+ * Every project is formatted completely before it is appended, so several threads can share one export.
+ * @author Paul Kneringer
+ */
+public class StatisticsExport {
+	public static final String STATISTICS = "Statistics.csv";
+	public static final String TABLE = "Statistic_Table.txt";
+	public static final String SERIES = "KPISeries.csv";
+
+	private String statisticsFile;
+	private String tableFile;
+	private String seriesFile;
+
+	public StatisticsExport() {
+		this(STATISTICS, TABLE, SERIES);
+	}
+
+	/**
+	 * @param statisticsFile: File the KPIs and curves are appended to
+	 * @param tableFile: File the table rows are appended to
+	 * @param seriesFile: File the KPI series are appended to
+	 */
+	public StatisticsExport(String statisticsFile, String tableFile, String seriesFile) {
+		this.statisticsFile = statisticsFile;
+		this.tableFile = tableFile;
+		this.seriesFile = seriesFile;
+	}
+
+	/**
+	 * Appends the KPIs of a project to the statistics file and its KPI series to the series file
+	 * @param m: Metrics of the project
+	 * @param windowed: KPI series of the project
+	 * @param curves: Number of changes per activity type and step
+	 * @param labels: Activity labels of the regular expressions, types that are not contained in the curves get -1
+	 * @param steps: Number of steps of the curves, usually 100 (percent)
+	 */
+	public void writeStatistics(Metrics m, WindowedMetrics windowed, Map<String, ? extends Map<Integer, Integer>> curves,
+			List<String> labels, int steps) throws IOException {
+		append(formatStatistics(m, curves, labels, steps), null, formatSeries(windowed));
+	}
+
+	/**
+	 * Appends the table row of a project to the table file
+	 * @param commits: Number of commits of the project
+	 * @param m: Metrics of the project
+	 */
+	public void writeTableRow(int commits, Metrics m) throws IOException {
+		append(null, formatTableRow(commits, m), null);
+	}
+
+	/**
+	 * Appends an already formatted project (see formatStatistics, formatTableRow and formatSeries)
+	 * @param statistics: Text for the statistics file, null if nothing is appended
+	 * @param tableRow: Text for the table file, null if nothing is appended
+	 * @param series: Text for the series file, null if nothing is appended
+	 */
+	public synchronized void append(String statistics, String tableRow, String series) throws IOException {
+		if (statistics != null)
+			appendTo(statisticsFile, statistics);
+		if (tableRow != null)
+			appendTo(tableFile, tableRow);
+		if (series != null)
+			appendTo(seriesFile, series);
+	}
+
+	private static void appendTo(String filename, String text) throws IOException {
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(filename, true)))) {
+			out.print(text);
+		}
+	}
+
+	public static String formatStatistics(Metrics m, Map<String, ? extends Map<Integer, Integer>> curves,
+			List<String> labels, int steps) {
+		StringWriter text = new StringWriter();
+		PrintWriter out = new PrintWriter(text);
+		int sum = 0;
+		int val = 0;
+		out.println("%--%NEW LOG%--%");
+		out.println("NAP:" + m.NAP() + ",NTP:" + m.NTP() + ",PIS:" + m.PIS() + ",RPIS:" + m.RPIS() + ",PW:" + m.PW()
+				+ ",PWS:" + m.PWS() + ",RPWS:" + m.RPWS());
+
+		for (String type : labels) {
+			out.print(type + ",");
+			for (int i = 0; i < steps; i++) {
+				if (curves.containsKey(type)) {
+					if (curves.get(type).containsKey(i)) {
+						val = curves.get(type).get(i);
+						out.print(val);
+						sum += val;
+					} else {
+						out.print("0");
+					}
+				} else {
+					out.print("-1");
+					break;
+				}
+				if (i != steps - 1) {
+					out.print(",");
+				}
+			}
+			out.print("--PTW:" + m.PTW(type) + ",RPTW:" + m.RPTW(type) + ",PTI:" + m.PTI(type) + ",RPTI:" + m.RPTI(type)
+					+ ",CNTRL:" + sum + "\n");
+		}
+		out.flush();
+		return text.toString();
+	}
+
+	/**
+	 * format: one line per sliding window after a header with the window and step length in days
+	 */
+	public static String formatSeries(WindowedMetrics windowed) {
+		StringWriter text = new StringWriter();
+		PrintWriter out = new PrintWriter(text);
+		out.println("%--%NEW LOG%--%WINDOW:" + windowed.getWindowDays() + ",STEP:" + windowed.getStepDays());
+		for (int w = 0; w < windowed.size(); w++) {
+			out.println("START:" + windowed.getStart(w).toString("yyyy-MM-dd") + ",COMMITS:" + windowed.getCommits(w)
+					+ ",NAP:" + windowed.NAP(w) + ",PWS:" + windowed.PWS(w) + ",RPWS:" + windowed.RPWS(w) + ",PIS:"
+					+ windowed.PIS(w) + ",RPIS:" + windowed.RPIS(w));
+		}
+		out.flush();
+		return text.toString();
+	}
+
+	/**
+	 * format: Nr Commits & Workload & Nr Authors & Nr Types & Gini Type & Gini Authors & WL Code & WL Doc & WL Test
+	 * & WL Unknown
+	 */
+	public static String formatTableRow(int commits, Metrics m) {
+		return "-- NEW LOG --\n" + commits + " & " + m.PW() + " & " + m.NAP() + " & " + m.NTP() + " & "
+				+ round(m.PWS()) + " & " + round(m.PIS()) + " & " + m.PTW("code") + " & " + m.PTW("doc") + " & "
+				+ m.PTW("test") + " & " + m.PTW("unknown") + "\n\n";
+	}
+
+	private static double round(double value) {
+		return (double) Math.round(value * 100000d) / 100000d;
+	}
+}
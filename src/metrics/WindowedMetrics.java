@@ -0,0 +1,235 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+import model.ColumnarLog;
+import model.Log;
+
+/**
+ * Time series of the specialisation KPIs (PWS, RPWS, PIS, RPIS) over sliding windows, e.g. 90 days stepping weekly
+ * The commit indices are sorted by date once, a MetricsAccumulator then follows the window: commits are accepted when
+ * they enter and removed when they leave it. Every commit is added and removed once, each window only adds
+ * the O(types) Gini calculations of its KPIs.
+ * Windows start at the beginning of the day of the first commit, the last window contains the last commit.
+ * Windows without commits have NaN values (see Gini.compute).
+ * @author Paul Kneringer
+ */
+public class WindowedMetrics {
+	public static final int DEFAULT_WINDOW_DAYS = 90;
+	public static final int DEFAULT_STEP_DAYS = 7;
+
+	private int windowDays;
+	private int stepDays;
+	private List<DateTime> starts = new ArrayList<DateTime>();
+	private int[] commits;
+	private int[] NAP;
+	private double[] PWS;
+	private double[] RPWS;
+	private double[] PIS;
+	private double[] RPIS;
+
+	/**
+	 * Uses windows of 90 days stepping weekly
+	 * @param log: Enriched log
+	 */
+	public WindowedMetrics(Log log) {
+		this(log, DEFAULT_WINDOW_DAYS, DEFAULT_STEP_DAYS);
+	}
+
+	/**
+	 * Uses windows of 90 days stepping weekly
+	 * @param log: Enriched log
+	 */
+	public WindowedMetrics(ColumnarLog log) {
+		this(log, DEFAULT_WINDOW_DAYS, DEFAULT_STEP_DAYS);
+	}
+
+	/**
+	 * Legacy logs are copied into a ColumnarLog first
+	 * @param log: Enriched log
+	 * @param windowDays: Length of a window in days
+	 * @param stepDays: Days between the starts of two windows
+	 */
+	public WindowedMetrics(Log log, int windowDays, int stepDays) {
+		this(ColumnarLog.of(log), windowDays, stepDays);
+	}
+
+	/**
+	 * Works on the columns of the log, no LogEntry objects are created
+	 * @param log: Enriched log
+	 * @param windowDays: Length of a window in days
+	 * @param stepDays: Days between the starts of two windows
+	 */
+	public WindowedMetrics(ColumnarLog log, int windowDays, int stepDays) {
+		if (windowDays <= 0 || stepDays <= 0)
+			throw new IllegalArgumentException("Window and step have to be at least one day");
+		this.windowDays = windowDays;
+		this.stepDays = stepDays;
+		int[] order = sortByTime(log);
+		if (order.length == 0) {
+			allocate(0);
+			return;
+		}
+		DateTime first = new DateTime(log.getTime(order[0])).withTimeAtStartOfDay();
+		long last = log.getTime(order[order.length - 1]);
+		for (DateTime start = first; start.getMillis() <= last; start = start.plusDays(stepDays)) {
+			starts.add(start);
+		}
+		int n = starts.size();
+		allocate(n);
+		//Bounds of the windows in millis, the days are added to the DateTime to respect daylight saving time
+		long[] begin = new long[n];
+		long[] end = new long[n];
+		for (int w = 0; w < n; w++) {
+			begin[w] = starts.get(w).getMillis();
+			end[w] = starts.get(w).plusDays(windowDays).getMillis();
+		}
+
+		MetricsAccumulator window = new MetricsAccumulator();
+		int in = 0;
+		int out = 0;
+		for (int w = 0; w < n; w++) {
+			while (in < order.length && log.getTime(order[in]) < end[w]) {
+				window.accept(log, order[in++]);
+			}
+			while (out < in && log.getTime(order[out]) < begin[w]) {
+				window.remove(log, order[out++]);
+			}
+			commits[w] = window.getCommits();
+			NAP[w] = window.NAP();
+			PWS[w] = window.PWS();
+			RPWS[w] = window.RPWS();
+			PIS[w] = window.PIS();
+			RPIS[w] = window.RPIS();
+		}
+	}
+
+	/**
+	 * Sorts the indices of the commits by their time, commits with the same time keep the order of the log
+	 * GIT logs are usually sorted already (newest first), a reversed log is detected in O(n).
+	 */
+	private static int[] sortByTime(ColumnarLog log) {
+		int n = log.size();
+		long[] times = new long[n];
+		int[] order = new int[n];
+		boolean ascending = true;
+		boolean descending = true;
+		for (int i = 0; i < n; i++) {
+			times[i] = log.getTime(i);
+			order[i] = i;
+			if (i > 0) {
+				ascending &= times[i - 1] <= times[i];
+				descending &= times[i - 1] > times[i];
+			}
+		}
+		if (ascending)
+			return order;
+		if (descending) {
+			for (int i = 0; i < n; i++) {
+				order[i] = n - 1 - i;
+			}
+			return order;
+		}
+		mergeSort(order, new int[n], 0, n, times);
+		return order;
+	}
+
+	private static void mergeSort(int[] order, int[] tmp, int from, int to, long[] times) {
+		if (to - from < 2)
+			return;
+		int mid = (from + to) >>> 1;
+		mergeSort(order, tmp, from, mid, times);
+		mergeSort(order, tmp, mid, to, times);
+		if (times[order[mid - 1]] <= times[order[mid]])
+			return;
+		System.arraycopy(order, from, tmp, from, to - from);
+		int a = from;
+		int b = mid;
+		for (int k = from; k < to; k++) {
+			if (b >= to || (a < mid && times[tmp[a]] <= times[tmp[b]]))
+				order[k] = tmp[a++];
+			else
+				order[k] = tmp[b++];
+		}
+	}
+
+	/**
+	 * Restores a series that was calculated before, e.g. stored in a snapshot, the arrays are not copied
+	 * @param starts: First day of every window
+	 * @param commits: Number of commits per window, the other arrays contain the KPIs per window
+	 */
+	public WindowedMetrics(int windowDays, int stepDays, List<DateTime> starts, int[] commits, int[] NAP,
+			double[] PWS, double[] RPWS, double[] PIS, double[] RPIS) {
+		int n = starts.size();
+		if (commits.length != n || NAP.length != n || PWS.length != n || RPWS.length != n || PIS.length != n
+				|| RPIS.length != n)
+			throw new IllegalArgumentException("Values of " + n + " windows expected");
+		this.windowDays = windowDays;
+		this.stepDays = stepDays;
+		this.starts.addAll(starts);
+		this.commits = commits;
+		this.NAP = NAP;
+		this.PWS = PWS;
+		this.RPWS = RPWS;
+		this.PIS = PIS;
+		this.RPIS = RPIS;
+	}
+
+	private void allocate(int size) {
+		commits = new int[size];
+		NAP = new int[size];
+		PWS = new double[size];
+		RPWS = new double[size];
+		PIS = new double[size];
+		RPIS = new double[size];
+	}
+
+	/**
+	 * @return Number of windows
+	 */
+	public int size() {
+		return starts.size();
+	}
+
+	public int getWindowDays() {
+		return windowDays;
+	}
+
+	public int getStepDays() {
+		return stepDays;
+	}
+
+	/**
+	 * @return First day of the window (inclusive), the window ends windowDays later (exclusive)
+	 */
+	public DateTime getStart(int window) {
+		return starts.get(window);
+	}
+
+	public int getCommits(int window) {
+		return commits[window];
+	}
+
+	public int NAP(int window) {
+		return NAP[window];
+	}
+
+	public double PWS(int window) {
+		return PWS[window];
+	}
+
+	public double RPWS(int window) {
+		return RPWS[window];
+	}
+
+	public double PIS(int window) {
+		return PIS[window];
+	}
+
+	public double RPIS(int window) {
+		return RPIS[window];
+	}
+}
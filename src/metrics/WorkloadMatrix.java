@@ -0,0 +1,288 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import model.ChangeTemplate;
+import model.ColumnarLog;
+import model.Dictionaries;
+import model.EnrichedChange;
+import model.Log;
+import model.LogEntry;
+import model.StringDictionary;
+
+/**
+ * Dense author x activity type workload matrix (ATW) of one project
+ * The matrix is built in one pass over the log, all KPIs of Vasilescu et al. are derived from it
+ * without scanning the log again: O(authors) per type KPI, O(authors x types) for the Gini KPIs.
+ * Rows are all authors of the log (also authors without file changes, they count for NAP),
+ * columns are the file labels and commit types. The type KPIs (PWS, RPWS, PIS, RPIS, NTP) use the commit
+ * types of the log (majority vote), like Metrics does.
+ * @author Paul Kneringer
+ */
+public class WorkloadMatrix {
+	private List<String> authors;
+	private List<String> labels;
+	//Columns of the commit types in order of appearance
+	private int[] types;
+	private int[][] workload;
+	private HashMap<String, Integer> columns = new HashMap<String, Integer>();
+	//Derived values per column: PTW and PTI
+	private int[] typeWorkload;
+	private int[] involvement;
+	private int total;
+
+	/**
+	 * @param authors: Authors of the project (rows)
+	 * @param labels: Activity labels (columns), contains all commit types
+	 * @param types: Columns of the commit types
+	 * @param workload: Number of file changes per author and label
+	 */
+	public WorkloadMatrix(List<String> authors, List<String> labels, int[] types, int[][] workload) {
+		this(authors, labels, types, workload, new int[labels.size()], new int[labels.size()], 0);
+		for (int[] row : workload) {
+			for (int t = 0; t < row.length; t++) {
+				typeWorkload[t] += row[t];
+				if (row[t] > 0)
+					involvement[t]++;
+				total += row[t];
+			}
+		}
+	}
+
+	/**
+	 * Creates the matrix with already calculated totals per label (see MetricsAccumulator)
+	 * @param typeWorkload: PTW per label
+	 * @param involvement: PTI per label
+	 * @param total: PW
+	 */
+	WorkloadMatrix(List<String> authors, List<String> labels, int[] types, int[][] workload, int[] typeWorkload,
+			int[] involvement, int total) {
+		this.authors = Collections.unmodifiableList(authors);
+		this.labels = Collections.unmodifiableList(labels);
+		this.types = types;
+		this.workload = workload;
+		for (int t = 0; t < labels.size(); t++) {
+			columns.put(labels.get(t), t);
+		}
+		this.typeWorkload = typeWorkload;
+		this.involvement = involvement;
+		this.total = total;
+	}
+
+	/**
+	 * Builds the matrix in one pass over the log
+	 * @param log: Enriched log
+	 * @return the workload matrix of the log
+	 */
+	public static WorkloadMatrix of(Log log) {
+		if (log instanceof ColumnarLog)
+			return of((ColumnarLog) log);
+		//Rows are the ids of the authors in a dictionary of the matrix, columns are collected by the ids of
+		//Dictionaries.LABELS, local indices are stored + 1
+		StringDictionary authors = new StringDictionary();
+		int[] cols = new int[Dictionaries.LABELS.size()];
+		List<String> labels = new ArrayList<String>();
+		List<int[]> workload = new ArrayList<int[]>();
+		int[] types = new int[8];
+		int typeCount = 0;
+		boolean[] isType = new boolean[cols.length];
+		for (LogEntry l : log.getAllEntries()) {
+			int author = authors.intern(l.getAuthor());
+			if (author == workload.size())
+				workload.add(new int[8]);
+			int[] row = workload.get(author);
+			for (ChangeTemplate c : l.getChangeList()) {
+				int label = ((EnrichedChange) c).getActivityLabelId();
+				if (label >= cols.length) {
+					cols = Arrays.copyOf(cols, Dictionaries.LABELS.size());
+					isType = Arrays.copyOf(isType, cols.length);
+				}
+				if (cols[label] == 0) {
+					labels.add(Dictionaries.LABELS.get(label));
+					cols[label] = labels.size();
+				}
+				int col = cols[label] - 1;
+				if (col >= row.length) {
+					row = Arrays.copyOf(row, Math.max(row.length * 2, col + 1));
+					workload.set(author, row);
+				}
+				row[col]++;
+			}
+			int type = l.getTypeId();
+			if (type >= cols.length) {
+				cols = Arrays.copyOf(cols, Dictionaries.LABELS.size());
+				isType = Arrays.copyOf(isType, cols.length);
+			}
+			if (!isType[type]) {
+				isType[type] = true;
+				if (cols[type] == 0) {
+					labels.add(Dictionaries.LABELS.get(type));
+					cols[type] = labels.size();
+				}
+				if (typeCount == types.length)
+					types = Arrays.copyOf(types, typeCount * 2);
+				types[typeCount++] = cols[type] - 1;
+			}
+		}
+		int[][] matrix = new int[authors.size()][];
+		for (int a = 0; a < matrix.length; a++) {
+			matrix[a] = Arrays.copyOf(workload.get(a), labels.size());
+		}
+		return new WorkloadMatrix(authors.toList(), labels, Arrays.copyOf(types, typeCount), matrix);
+	}
+
+	/**
+	 * Builds the matrix from the columns of the log, the ids of the log are the rows and columns of the matrix
+	 */
+	private static WorkloadMatrix of(ColumnarLog log) {
+		int[][] matrix = new int[log.getAuthors().size()][log.getLabels().size()];
+		boolean[] isType = new boolean[log.getLabels().size()];
+		int[] types = new int[isType.length];
+		int typeCount = 0;
+		for (int i = 0; i < log.size(); i++) {
+			int[] row = matrix[log.getAuthorId(i)];
+			for (int c = log.getChangeStart(i); c < log.getChangeEnd(i); c++) {
+				int label = log.getLabelId(c);
+				if (label != ColumnarLog.NO_LABEL)
+					row[label]++;
+			}
+			int type = log.getTypeId(i);
+			if (!isType[type]) {
+				isType[type] = true;
+				types[typeCount++] = type;
+			}
+		}
+		return new WorkloadMatrix(log.getAuthors().toList(), log.getLabels().toList(), Arrays.copyOf(types, typeCount),
+				matrix);
+	}
+
+	private int column(String type) {
+		Integer col = columns.get(type);
+		return col == null ? -1 : col;
+	}
+
+	public List<String> getAuthors() {
+		return authors;
+	}
+
+	/**
+	 * @return Activity labels of the columns
+	 */
+	public List<String> getLabels() {
+		return labels;
+	}
+
+	/**
+	 * @return Commit types of the project in order of appearance
+	 */
+	public List<String> getTypes() {
+		List<String> ret = new ArrayList<String>(types.length);
+		for (int t : types) {
+			ret.add(labels.get(t));
+		}
+		return ret;
+	}
+
+	/**
+	 * @return Number of file changes per author (rows) and label (columns), must not be modified
+	 */
+	public int[][] getWorkload() {
+		return workload;
+	}
+
+	/**
+	 * Converts the matrix into the map structure of Metrics.getATW
+	 * Authors without file changes and types without changes of an author are left out
+	 */
+	public HashMap<String, HashMap<String, Integer>> toATW() {
+		HashMap<String, HashMap<String, Integer>> ATW = new HashMap<String, HashMap<String, Integer>>();
+		for (int a = 0; a < workload.length; a++) {
+			HashMap<String, Integer> innerList = new HashMap<String, Integer>();
+			for (int t = 0; t < workload[a].length; t++) {
+				if (workload[a][t] > 0)
+					innerList.put(labels.get(t), workload[a][t]);
+			}
+			if (!innerList.isEmpty())
+				ATW.put(authors.get(a), innerList);
+		}
+		return ATW;
+	}
+
+	public int ATPW(String author, String type) {
+		int a = authors.indexOf(author);
+		int t = column(type);
+		return a < 0 || t < 0 ? 0 : workload[a][t];
+	}
+
+	public int PW() {
+		return total;
+	}
+
+	public int PTW(String type) {
+		int t = column(type);
+		return t < 0 ? 0 : typeWorkload[t];
+	}
+
+	public double RPTW(String type) {
+		return ((double) PTW(type)) / ((double) PW());
+	}
+
+	public int PTI(String type) {
+		int t = column(type);
+		return t < 0 ? 0 : involvement[t];
+	}
+
+	public double RPTI(String type) {
+		return (double) PTI(type) / (double) NAP();
+	}
+
+	public int NTP() {
+		return types.length;
+	}
+
+	public int NAP() {
+		return authors.size();
+	}
+
+	public double PWS() {
+		return gini(typeWorkload, types);
+	}
+
+	public double RPWS() {
+		return gini(typeWorkload, types, PW());
+	}
+
+	public double PIS() {
+		return gini(involvement, types);
+	}
+
+	public double RPIS() {
+		return gini(involvement, types, NAP());
+	}
+
+	/**
+	 * Gini coefficient of the values of the given columns (zeros are not counted)
+	 */
+	static double gini(int[] values, int[] columns) {
+		int[] list = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			list[i] = values[columns[i]];
+		}
+		return Gini.compute(list, false);
+	}
+
+	/**
+	 * Gini coefficient of the values of the given columns relative to a total, e.g. RPTW = PTW / PW
+	 */
+	static double gini(int[] values, int[] columns, int total) {
+		double[] list = new double[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			list[i] = (double) values[columns[i]] / (double) total;
+		}
+		return Gini.compute(list, false);
+	}
+}
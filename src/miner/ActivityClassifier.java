@@ -0,0 +1,59 @@
+package miner;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies file paths with the regular expressions of the RegularExpressions.csv file
+ * The expressions are analysed once when the file is loaded: expressions that only describe extensions,
+ * directories, file names or other literal parts of a path are stored in a RuleIndex and answered with hash lookups.
+ * The remaining (irregular) expressions of a line are compiled into one pattern per line. They are only evaluated
+ * for lines after the best match of the index, starting with the last line ("last matching category wins").
+ * @author Paul Kneringer
+ */
+public class ActivityClassifier {
+	public static final String UNKNOWN = "unknown";
+
+	private RuleIndex index = new RuleIndex();
+	//Activity label and irregular expressions of every line of the file, indexed by line
+	private String[] labels;
+	private Pattern[] irregular;
+
+	/**
+	 * @param expressions: Lines of the csv file, first element is the label, the others are regular expressions
+	 */
+	public ActivityClassifier(List<String[]> expressions) {
+		labels = new String[expressions.size()];
+		irregular = new Pattern[expressions.size()];
+		for (int i = 0; i < expressions.size(); i++) {
+			String[] line = expressions.get(i);
+			labels[i] = line[0];
+			StringBuilder regex = new StringBuilder();
+			for (int j = 1; j < line.length; j++) {
+				if (index.add(line[j], i))
+					continue;
+				if (regex.length() > 0)
+					regex.append('|');
+				regex.append("(?:").append(line[j]).append(')');
+			}
+			if (regex.length() > 0)
+				irregular[i] = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+		}
+	}
+
+	/**
+	 * Identifies the activity label of a path
+	 * @param path: path of the changed file
+	 * @return Label of the last line that matches the path, "unknown" if no line matches
+	 */
+	public String classify(String path) {
+		int best = index.lookup(RuleIndex.asciiLower(path));
+		for (int i = irregular.length - 1; i > best; i--) {
+			if (irregular[i] != null && irregular[i].matcher(path).matches()) {
+				best = i;
+				break;
+			}
+		}
+		return best < 0 ? UNKNOWN : labels[best];
+	}
+}
@@ -1,9 +1,9 @@
 package miner;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import model.ChangeTemplate;
 import model.EnrichedChange;
@@ -17,61 +17,145 @@ import reader.CSVReader;
  *
  */
 public class ActivityIdentifier {
+	public static final int DEFAULT_CACHE_SIZE = 1 << 17;
 	private CSVReader csvRead;
 	private ArrayList<String[]> expressions;
+	private String csvPath;
+	private int cacheSize;
+	//Classifier and cache are replaced together if the csv file changes
+	private volatile Rules rules;
+	private long csvModified;
+	private long csvLength;
+
+	/**
+	 * Compiled rules of one version of the csv file and the labels that were identified with them
+	 */
+	private static class Rules {
+		private ActivityClassifier classifier;
+		private LabelCache cache;
+
+		private Rules(ActivityClassifier classifier, LabelCache cache) {
+			this.classifier = classifier;
+			this.cache = cache;
+		}
+	}
 
 	
 	public ActivityIdentifier(String csvPath) {
+		this(csvPath, DEFAULT_CACHE_SIZE);
+	}
+	
+	/**
+	 * @param csvPath: Location of the regular expressions
+	 * @param cacheSize: Maximum number of paths whose label is cached
+	 */
+	public ActivityIdentifier(String csvPath, int cacheSize) {
+		this.csvPath = csvPath;
+		this.cacheSize = cacheSize;
+		loadRules();
+	}
+	
+	/**
+	 * Reads the csv file and replaces the classifier and the cache
+	 */
+	private synchronized void loadRules() {
+		File f = new File(csvPath);
+		csvModified = f.lastModified();
+		csvLength = f.length();
 		csvRead = new CSVReader();
 		expressions = csvRead.readFile(csvPath);
-
+		rules = new Rules(new ActivityClassifier(expressions), new LabelCache(cacheSize));
+	}
+	
+	/**
+	 * Reloads the regular expressions if the csv file was changed since it was read
+	 * The cached labels are discarded in this case
+	 * @return true if the file was reloaded
+	 */
+	public synchronized boolean reloadIfChanged() {
+		File f = new File(csvPath);
+		if (f.lastModified() == csvModified && f.length() == csvLength)
+			return false;
+		loadRules();
+		return true;
+	}
+	
+	/**
+	 * @return Cache of identified labels, the counters show how many paths were looked up
+	 */
+	public LabelCache getCache() {
+		return rules.cache;
 	}
 	
 	/**
 	 * Receives a log and transforms all Change objects into EnrichedChange objects that contain an acitity label
 	 */
 	public Log enrichLog(Log log) {
-		EnrichedChange eC;
-
-		List<ChangeTemplate> newChangeList;
-		for(LogEntry l : log.getAllEntries()) {
-			newChangeList = new ArrayList<ChangeTemplate>();
-			for(ChangeTemplate c : l.getChangeList()) {
-				eC = identifyActivityLabel(c);
-				newChangeList.add(eC);
+		return enrichLog(log, false);
+	}
+	
+	/**
+	 * Receives a log and transforms all Change objects into EnrichedChange objects that contain an acitity label
+	 * In parallel mode the entries are distributed over the fork-join pool of the calling task (the common pool
+	 * if the caller is no fork-join task). Every entry receives its own new change list, only the (concurrent)
+	 * label cache is shared, so the labels and commit types equal the sequential ones entry by entry.
+	 * The ids that Dictionaries assigns to new labels and actions depend on which thread sees them first, only the
+	 * Strings are guaranteed to be equal.
+	 * @param log: Log that is enriched
+	 * @param parallel: true to classify the entries on all cores
+	 */
+	public Log enrichLog(Log log, boolean parallel) {
+		reloadIfChanged();
+		if (parallel) {
+			log.getAllEntries().parallelStream().forEach(this::enrichEntry);
+		} else {
+			for(LogEntry l : log.getAllEntries()) {
+				enrichEntry(l);
 			}
-			l.setChangeList(newChangeList);
-		}		
+		}
 		return log;
 	}
 	
+	/**
+	 * Enriches the entries of a stream while they pass through, e.g. while they are read by a LogReader
+	 * @param entries: Stream of log entries, e.g. LogReader.stream()
+	 * @return Stream of the same entries containing EnrichedChange objects
+	 */
+	public Stream<LogEntry> enrich(Stream<LogEntry> entries) {
+		reloadIfChanged();
+		return entries.map(this::enrichEntry);
+	}
+	
+	/**
+	 * Transforms all Change objects of one log entry into EnrichedChange objects
+	 * @param l: LogEntry that is enriched
+	 * @return the same LogEntry
+	 */
+	public LogEntry enrichEntry(LogEntry l) {
+		List<ChangeTemplate> newChangeList = new ArrayList<ChangeTemplate>();
+		for(ChangeTemplate c : l.getChangeList()) {
+			newChangeList.add(identifyActivityLabel(c));
+		}
+		l.setChangeList(newChangeList);
+		//The commit type is voted once while the entry is enriched
+		l.getTypeId();
+		return l;
+	}
+	
 	/**
 	 * Identifies the activity type with regular expressions
+	 * The expressions are compiled once by the ActivityClassifier, the last matching category wins
+	 * Labels of paths that were already classified are taken from the cache
 	 * @param c: Change object that is transformed into an EnrichedChange object
 	 */
 	public EnrichedChange identifyActivityLabel(ChangeTemplate c) {
-		Pattern pat;
-		Matcher mat;
-		String result = "unknown";
-
-		//Read all regular expressions for the identification of activities 
-		for(String[] line : expressions) {
-			//System.out.println(line[0]);		
-			for(int i = 1; i <= line.length-1; i++) {
-				//System.out.println("REGEX: " + line[0]);		
-				pat = Pattern.compile("(?i)^"+line[i]+"$");
-				mat = pat.matcher(c.getPath());
-
-				if (mat.find()) {
-					//System.out.println("Found value: " + mat.group(0) + " - IN: " + line[0] + " - REGEX: " + line[i]);
-					result = line[0];		
-				}
-			}
-			
+		Rules r = rules;
+		String label = r.cache.get(c.getPath());
+		if (label == null) {
+			label = r.classifier.classify(c.getPath());
+			r.cache.put(c.getPath(), label);
 		}
-		//System.out.println("ACTUAL RESULT: " + result);
-		EnrichedChange eC = new EnrichedChange(c.getAction(), c.getPath(), result);
-		return eC;
+		return new EnrichedChange(c.getAction(), c.getPath(), label);
 	}
 	
 	/**
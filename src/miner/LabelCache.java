@@ -0,0 +1,87 @@
+package miner;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache from file paths to activity labels that can be used by several threads
+ * The same paths are changed many times during the history of a repository, so most paths only have to be classified once.
+ * If the cache grows beyond its maximum size, a quarter of the entries is evicted (in the arbitrary order of the map).
+ * @author Paul Kneringer
+ */
+public class LabelCache {
+	private ConcurrentHashMap<String, String> labels;
+	private int maxSize;
+	private AtomicBoolean evicting = new AtomicBoolean(false);
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+
+	/**
+	 * @param maxSize: Maximum number of paths stored in the cache
+	 */
+	public LabelCache(int maxSize) {
+		this.maxSize = maxSize;
+		labels = new ConcurrentHashMap<String, String>(Math.min(maxSize, 1 << 12));
+	}
+
+	/**
+	 * @param path: File path
+	 * @return the stored activity label, null if the path is not stored
+	 */
+	public String get(String path) {
+		String label = labels.get(path);
+		if (label == null)
+			misses.increment();
+		else
+			hits.increment();
+		return label;
+	}
+
+	public void put(String path, String label) {
+		labels.put(path, label);
+		if (labels.size() > maxSize && evicting.compareAndSet(false, true)) {
+			try {
+				Iterator<String> it = labels.keySet().iterator();
+				int target = maxSize - maxSize / 4;
+				while (labels.size() > target && it.hasNext()) {
+					it.next();
+					it.remove();
+				}
+			} finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries and resets the counters
+	 */
+	public void clear() {
+		labels.clear();
+		hits.reset();
+		misses.reset();
+	}
+
+	public int size() {
+		return labels.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return share of lookups that were answered by the cache, 0 if there was no lookup
+	 */
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return total == 0 ? 0.0 : (double) h / (double) total;
+	}
+}
@@ -0,0 +1,234 @@
+package miner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Hash index for the regular expressions that only describe literal parts of a path
+ * Most expressions of the RegularExpressions.csv file have one of the following shapes:
+ * .*\.ext (extension), .*\/dir\/.* (directory), .*\/name (file name), .*text.* (contains), .*text (suffix)
+ * Optional parts like (s?) or alternatives like (s|x) are expanded into several literals.
+ * Extensions, directories and file names are looked up in hash maps, the other literals are compared directly.
+ * Expressions that can not be expanded into literals are left to the ActivityClassifier.
+ * Paths are compared in lower case (ASCII only, as the case insensitive flag of the expressions).
+ * @author Paul Kneringer
+ */
+class RuleIndex {
+	//Expressions with more expanded literals are treated as irregular
+	private static final int MAX_LITERALS = 64;
+
+	//Literal -> highest line that contains it
+	private HashMap<String, Integer> extensions = new HashMap<String, Integer>();
+	private HashMap<String, Integer> directories = new HashMap<String, Integer>();
+	private HashMap<String, Integer> names = new HashMap<String, Integer>();
+	private HashMap<String, Integer> exact = new HashMap<String, Integer>();
+	//Literals that have to be compared one by one, sorted by line (descending)
+	private List<Literal> contains = new ArrayList<Literal>();
+	private List<Literal> suffixes = new ArrayList<Literal>();
+	private List<Literal> prefixes = new ArrayList<Literal>();
+	//Highest line containing .* (matches every path)
+	private int matchAll = -1;
+
+	private static class Literal {
+		private String text;
+		private int line;
+
+		private Literal(String text, int line) {
+			this.text = text;
+			this.line = line;
+		}
+	}
+
+	/**
+	 * Adds the expression to the index if it only consists of literal parts
+	 * @param regex: One regular expression of the csv file
+	 * @param line: Line of the csv file
+	 * @return false if the expression is irregular and has to be evaluated as regular expression
+	 */
+	boolean add(String regex, int line) {
+		boolean lead = regex.startsWith(".*");
+		if (lead)
+			regex = regex.substring(2);
+		boolean trail = false;
+		if (regex.endsWith("(.*)")) {
+			trail = true;
+			regex = regex.substring(0, regex.length() - 4);
+		} else if (regex.endsWith(".*") && !regex.endsWith("\\.*")) {
+			trail = true;
+			regex = regex.substring(0, regex.length() - 2);
+		}
+		List<String> literals = expand(regex);
+		if (literals == null)
+			return false;
+		for (String literal : literals) {
+			index(asciiLower(literal), lead, trail, line);
+		}
+		return true;
+	}
+
+	private void index(String l, boolean lead, boolean trail, int line) {
+		if (l.isEmpty() && (lead || trail)) {
+			matchAll = Math.max(matchAll, line);
+		} else if (lead && trail) {
+			if (l.length() > 2 && l.charAt(0) == '/' && l.charAt(l.length() - 1) == '/'
+					&& l.indexOf('/', 1) == l.length() - 1)
+				put(directories, l.substring(1, l.length() - 1), line);
+			else
+				add(contains, l, line);
+		} else if (lead) {
+			if (l.length() > 1 && l.charAt(0) == '.' && l.indexOf('/') < 0)
+				put(extensions, l.substring(1), line);
+			else if (l.length() > 1 && l.charAt(0) == '/' && l.indexOf('/', 1) < 0)
+				put(names, l.substring(1), line);
+			else
+				add(suffixes, l, line);
+		} else if (trail) {
+			add(prefixes, l, line);
+		} else {
+			put(exact, l, line);
+		}
+	}
+
+	/**
+	 * Looks up the highest line of the index that matches the path
+	 * @param path: File path in lower case (asciiLower)
+	 * @return highest matching line, -1 if no indexed expression matches
+	 */
+	int lookup(String path) {
+		int best = matchAll;
+		best = max(best, exact.get(path));
+		int lastSlash = path.lastIndexOf('/');
+		if (lastSlash >= 0)
+			best = max(best, names.get(path.substring(lastSlash + 1)));
+		// every dot of the file name starts a possible extension, e.g. "txt.bak" and "bak"
+		for (int i = path.indexOf('.', lastSlash + 1); i >= 0; i = path.indexOf('.', i + 1)) {
+			best = max(best, extensions.get(path.substring(i + 1)));
+		}
+		// every component that is enclosed by slashes is a directory
+		int from = path.indexOf('/');
+		while (from >= 0 && from < lastSlash) {
+			int to = path.indexOf('/', from + 1);
+			best = max(best, directories.get(path.substring(from + 1, to)));
+			from = to;
+		}
+		for (Literal l : contains) {
+			if (l.line <= best)
+				break;
+			if (path.contains(l.text))
+				best = l.line;
+		}
+		for (Literal l : suffixes) {
+			if (l.line <= best)
+				break;
+			if (path.endsWith(l.text))
+				best = l.line;
+		}
+		for (Literal l : prefixes) {
+			if (l.line <= best)
+				break;
+			if (path.startsWith(l.text))
+				best = l.line;
+		}
+		return best;
+	}
+
+	private static int max(int best, Integer line) {
+		return line != null && line > best ? line : best;
+	}
+
+	private static void put(HashMap<String, Integer> map, String literal, int line) {
+		map.put(literal, max(line, map.get(literal)));
+	}
+
+	private static void add(List<Literal> list, String literal, int line) {
+		int i = 0;
+		while (i < list.size() && list.get(i).line >= line)
+			i++;
+		list.add(i, new Literal(literal, line));
+	}
+
+	/**
+	 * Lower case conversion that only affects ASCII characters
+	 */
+	static String asciiLower(String s) {
+		char[] c = null;
+		for (int i = 0; i < s.length(); i++) {
+			char ch = s.charAt(i);
+			if (ch >= 'A' && ch <= 'Z') {
+				if (c == null)
+					c = s.toCharArray();
+				c[i] = (char) (ch + 32);
+			}
+		}
+		return c == null ? s : new String(c);
+	}
+
+	/**
+	 * Expands an expression that consists of literal characters, escaped characters, optional characters
+	 * and (optional) groups of alternatives into all literals it describes.
+	 * @return the literals, null if the expression contains other constructs
+	 */
+	static List<String> expand(String regex) {
+		int[] pos = { 0 };
+		List<String> ret = expandSequence(regex, pos);
+		if (ret == null || pos[0] != regex.length())
+			return null;
+		return ret;
+	}
+
+	private static List<String> expandSequence(String regex, int[] pos) {
+		List<String> ret = new ArrayList<String>();
+		ret.add("");
+		while (pos[0] < regex.length()) {
+			char ch = regex.charAt(pos[0]);
+			List<String> part;
+			if (ch == '|' || ch == ')') {
+				break;
+			} else if (ch == '(') {
+				pos[0]++;
+				part = new ArrayList<String>();
+				while (true) {
+					List<String> alternative = expandSequence(regex, pos);
+					if (alternative == null || pos[0] >= regex.length())
+						return null;
+					part.addAll(alternative);
+					if (regex.charAt(pos[0]++) == ')')
+						break;
+				}
+			} else if (ch == '\\') {
+				if (pos[0] + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(pos[0] + 1)))
+					return null;
+				part = single(regex.charAt(pos[0] + 1));
+				pos[0] += 2;
+			} else if ("[]{}.*+?^$".indexOf(ch) >= 0) {
+				return null;
+			} else {
+				part = single(ch);
+				pos[0]++;
+			}
+			if (pos[0] < regex.length() && regex.charAt(pos[0]) == '?') {
+				part.add("");
+				pos[0]++;
+			}
+			if (pos[0] < regex.length() && "*+{".indexOf(regex.charAt(pos[0])) >= 0)
+				return null;
+			List<String> next = new ArrayList<String>();
+			for (String prefix : ret) {
+				for (String suffix : part) {
+					next.add(prefix + suffix);
+				}
+			}
+			if (next.size() > MAX_LITERALS)
+				return null;
+			ret = next;
+		}
+		return ret;
+	}
+
+	private static List<String> single(char ch) {
+		List<String> ret = new ArrayList<String>();
+		ret.add(String.valueOf(ch));
+		return ret;
+	}
+}
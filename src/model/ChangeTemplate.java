@@ -9,8 +9,12 @@ import java.io.Serializable;
  * Altered the class Change in order to make it compatible with EnrichedChanges
  */
 public abstract class ChangeTemplate implements Serializable{
+	//Fixed to the value before actionId was added (see LogEntry)
+	private static final long serialVersionUID = -4203587339899972490L;
 	private String action;
 	private String path;
+	//id + 1 of the action in Dictionaries.ACTIONS, 0 if not resolved yet (e.g. after deserialization)
+	private transient int actionId;
 	
 	public ChangeTemplate(String action, String path) {
 		this.setAction(action);
@@ -25,6 +29,16 @@ public abstract class ChangeTemplate implements Serializable{
 
 	public void setAction(String action) {
 		this.action = action;
+		this.actionId = action == null ? 0 : Dictionaries.ACTIONS.intern(action) + 1;
+	}
+
+	/**
+	 * @return id of the action in Dictionaries.ACTIONS
+	 */
+	public int getActionId() {
+		if (actionId == 0)
+			actionId = Dictionaries.ACTIONS.intern(action) + 1;
+		return actionId - 1;
 	}
 
 	public String getPath() {
@@ -0,0 +1,346 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+
+import model.git.GITLogEntry;
+
+/**
+ * Log that stores its commits column by column in primitive arrays instead of one object per commit and change
+ * Commits: timestamp, author id and the offset of their first change
+ * Changes: path id, action id and activity label id
+ * Authors, paths, actions and labels are stored once in dictionaries.
+ * The Log methods return LogEntry objects that are created from the columns on access,
+ * aggregations can scan the columns directly (see getChangeStart/getChangeEnd).
+ * @author Paul Kneringer
+ */
+public class ColumnarLog extends Log {
+	private static final long serialVersionUID = 1L;
+	//Label id of changes that were not enriched (Change instead of EnrichedChange)
+	public static final short NO_LABEL = -1;
+
+	private StringDictionary authors = new StringDictionary();
+	private StringDictionary paths = new StringDictionary();
+	private StringDictionary actions = new StringDictionary();
+	private StringDictionary labels = new StringDictionary();
+
+	//Commit columns
+	private int commitCount = 0;
+	private String[] tokens;
+	private String[] comments;
+	private long[] times;
+	private int[] authorIds;
+	//Commit type (majority vote of the change labels) as id in labels
+	private short[] typeIds;
+	//changeStart[i] is the first change of commit i, changeStart[commitCount] is the number of changes
+	private int[] changeStart;
+
+	//Change columns
+	private int[] pathIds;
+	private short[] actionIds;
+	private short[] labelIds;
+
+	private transient List<LogEntry> view = null;
+	private transient int[] globalLabels = null;
+
+	/**
+	 * Creates an empty log, commits are added with add(LogEntry)
+	 */
+	public ColumnarLog() {
+		this(16, 64);
+	}
+
+	/**
+	 * @param commits: expected number of commits
+	 * @param changes: expected number of changes
+	 */
+	public ColumnarLog(int commits, int changes) {
+		tokens = new String[Math.max(commits, 1)];
+		comments = new String[tokens.length];
+		times = new long[tokens.length];
+		authorIds = new int[tokens.length];
+		typeIds = new short[tokens.length];
+		changeStart = new int[tokens.length + 1];
+		pathIds = new int[Math.max(changes, 1)];
+		actionIds = new short[pathIds.length];
+		labelIds = new short[pathIds.length];
+	}
+
+	/**
+	 * Creates a log from columns that were read from a file (see snapshot.SnapshotReader), the arrays are not copied
+	 * The commit columns must contain commits values, the change columns changeStart[commits] values.
+	 * Subclasses may fill the arrays later, e.g. on first access (see snapshot.SnapshotLog). The values are then
+	 * only read through the get methods of the columns.
+	 */
+	public ColumnarLog(StringDictionary authors, StringDictionary paths, StringDictionary actions,
+			StringDictionary labels, int commits, String[] tokens, String[] comments, long[] times, int[] authorIds,
+			short[] typeIds, int[] changeStart, int[] pathIds, short[] actionIds, short[] labelIds) {
+		this.authors = authors;
+		this.paths = paths;
+		this.actions = actions;
+		this.labels = labels;
+		this.commitCount = commits;
+		this.tokens = tokens;
+		this.comments = comments;
+		this.times = times;
+		this.authorIds = authorIds;
+		this.typeIds = typeIds;
+		this.changeStart = changeStart;
+		this.pathIds = pathIds;
+		this.actionIds = actionIds;
+		this.labelIds = labelIds;
+	}
+
+	/**
+	 * Copies the entries of a log into the columnar representation
+	 * @param log: Log that is copied, usually enriched already
+	 * @return the columnar log, the log itself if it is columnar already
+	 */
+	public static ColumnarLog of(Log log) {
+		if (log instanceof ColumnarLog)
+			return (ColumnarLog) log;
+		int changes = 0;
+		for (LogEntry l : log.getAllEntries()) {
+			changes += l.getChangeList().size();
+		}
+		ColumnarLog ret = new ColumnarLog(log.size(), changes);
+		for (LogEntry l : log.getAllEntries()) {
+			ret.add(l);
+		}
+		return ret;
+	}
+
+	/**
+	 * Appends one commit and its changes to the columns
+	 * @param l: LogEntry that is added
+	 */
+	public void add(LogEntry l) {
+		if (commitCount == times.length) {
+			int n = times.length * 2;
+			tokens = Arrays.copyOf(tokens, n);
+			comments = Arrays.copyOf(comments, n);
+			times = Arrays.copyOf(times, n);
+			authorIds = Arrays.copyOf(authorIds, n);
+			typeIds = Arrays.copyOf(typeIds, n);
+			changeStart = Arrays.copyOf(changeStart, n + 1);
+		}
+		int c = changeStart[commitCount];
+		int needed = c + l.getChangeList().size();
+		if (needed > pathIds.length) {
+			int n = Math.max(needed, pathIds.length * 2);
+			pathIds = Arrays.copyOf(pathIds, n);
+			actionIds = Arrays.copyOf(actionIds, n);
+			labelIds = Arrays.copyOf(labelIds, n);
+		}
+		tokens[commitCount] = l.getStartingToken();
+		comments[commitCount] = l.getComment();
+		times[commitCount] = l.getDate().getMillis();
+		authorIds[commitCount] = authors.intern(l.getAuthor());
+		for (ChangeTemplate ct : l.getChangeList()) {
+			pathIds[c] = paths.intern(ct.getPath());
+			actionIds[c] = toShort(actions.intern(ct.getAction()));
+			if (ct instanceof EnrichedChange)
+				labelIds[c] = toShort(labels.intern(((EnrichedChange) ct).getActivityLabel()));
+			else
+				labelIds[c] = NO_LABEL;
+			c++;
+		}
+		typeIds[commitCount] = toShort(labels.intern(l.getType()));
+		commitCount++;
+		changeStart[commitCount] = c;
+		view = null;
+	}
+
+	private static short toShort(int id) {
+		if (id > Short.MAX_VALUE)
+			throw new IllegalStateException("Too many different actions or activity labels");
+		return (short) id;
+	}
+
+	/**
+	 * Creates a LogEntry object for one commit of the log
+	 * @param i: index of the commit
+	 * @return new GITLogEntry containing the values of the columns
+	 */
+	public LogEntry getEntry(int i) {
+		List<ChangeTemplate> changeList = new ArrayList<ChangeTemplate>(getChangeEnd(i) - getChangeStart(i));
+		for (int c = getChangeStart(i); c < getChangeEnd(i); c++) {
+			String action = actions.get(getActionId(c));
+			String path = paths.get(getPathId(c));
+			int label = getLabelId(c);
+			if (label == NO_LABEL)
+				changeList.add(new Change(action, path));
+			else
+				changeList.add(new EnrichedChange(action, path, labels.get(label)));
+		}
+		LogEntry entry = new GITLogEntry(getToken(i), authors.get(getAuthorId(i)), new DateTime(getTime(i)), getComment(i), changeList);
+		entry.setTypeId(toGlobalLabel(getTypeId(i)));
+		return entry;
+	}
+
+	/**
+	 * Translates a label id of this log into the id of the label in Dictionaries.LABELS
+	 */
+	private int toGlobalLabel(int label) {
+		int[] global = globalLabels;
+		if (global == null || label >= global.length) {
+			global = new int[labels.size()];
+			for (int t = 0; t < global.length; t++) {
+				global[t] = Dictionaries.LABELS.intern(labels.get(t));
+			}
+			globalLabels = global;
+		}
+		return global[label];
+	}
+
+	/**
+	 * @return unmodifiable list that creates the LogEntry objects on access
+	 */
+	@Override
+	public Collection<LogEntry> getAllEntries() {
+		if (view == null)
+			view = new EntryView();
+		return view;
+	}
+
+	private class EntryView extends AbstractList<LogEntry> implements RandomAccess {
+		@Override
+		public LogEntry get(int index) {
+			if (index < 0 || index >= commitCount)
+				throw new IndexOutOfBoundsException("Commit " + index + " of " + commitCount);
+			return getEntry(index);
+		}
+
+		@Override
+		public int size() {
+			return commitCount;
+		}
+	}
+
+	@Override
+	public Collection<String> getAllAuthors() {
+		return new HashSet<String>(authors.values());
+	}
+
+	@Override
+	public Collection<DateTime> getAllDates() {
+		Set<DateTime> dates = new HashSet<DateTime>();
+		for (int i = 0; i < commitCount; i++) {
+			dates.add(new DateTime(getTime(i)));
+		}
+		return dates;
+	}
+
+	@Override
+	public Collection<List<ChangeTemplate>> getGroupedChanges() {
+		Collection<List<ChangeTemplate>> changes = new ArrayList<List<ChangeTemplate>>();
+		for (LogEntry logEntry : getAllEntries()) {
+			changes.add(logEntry.getChangeList());
+		}
+		return changes;
+	}
+
+	@Override
+	public Collection<ChangeTemplate> getAllChanges() {
+		ArrayList<ChangeTemplate> changes = new ArrayList<ChangeTemplate>();
+		for (LogEntry logEntry : getAllEntries()) {
+			changes.addAll(logEntry.getChangeList());
+		}
+		return changes;
+	}
+
+	@Override
+	public Collection<String> getAllFiles() {
+		return new HashSet<String>(paths.values());
+	}
+
+	@Override
+	public int size() {
+		return commitCount;
+	}
+
+	@Override
+	public String toString() {
+		return "Log [entries=" + getAllEntries() + "]";
+	}
+
+	public int getChangeCount() {
+		return changeStart[commitCount];
+	}
+
+	public long getTime(int commit) {
+		return times[commit];
+	}
+
+	public int getAuthorId(int commit) {
+		return authorIds[commit];
+	}
+
+	/**
+	 * @return id of the commit type in getLabels()
+	 */
+	public int getTypeId(int commit) {
+		return typeIds[commit];
+	}
+
+	public String getToken(int commit) {
+		return tokens[commit];
+	}
+
+	public String getComment(int commit) {
+		return comments[commit];
+	}
+
+	/**
+	 * @return index of the first change of the commit
+	 */
+	public int getChangeStart(int commit) {
+		return changeStart[commit];
+	}
+
+	/**
+	 * @return index after the last change of the commit
+	 */
+	public int getChangeEnd(int commit) {
+		return changeStart[commit + 1];
+	}
+
+	public int getPathId(int change) {
+		return pathIds[change];
+	}
+
+	public int getActionId(int change) {
+		return actionIds[change];
+	}
+
+	/**
+	 * @return id of the activity label in getLabels(), NO_LABEL if the change was not enriched
+	 */
+	public int getLabelId(int change) {
+		return labelIds[change];
+	}
+
+	public StringDictionary getAuthors() {
+		return authors;
+	}
+
+	public StringDictionary getPaths() {
+		return paths;
+	}
+
+	public StringDictionary getActions() {
+		return actions;
+	}
+
+	public StringDictionary getLabels() {
+		return labels;
+	}
+}
@@ -0,0 +1,21 @@
+package model;
+
+/**
+ * Dictionaries that are shared by all logs of the application
+ * Activity labels and actions receive an integer id when they are parsed or classified,
+ * aggregations can then use the ids as keys or array indices and only resolve the Strings for display.
+ * The dictionaries live as long as the application and are never cleared, ids cached by LogEntry and
+ * EnrichedChange objects stay valid. They only grow with the categories of the regular expressions and the
+ * status letters of GIT, not with the number of logs that are analysed.
+ * The ids depend on the order in which the values were first seen, so they are only valid while the application
+ * is running and are not stored in serialized logs or snapshots.
+ * Authors are not part of these dictionaries, every ColumnarLog and every aggregation keeps its own.
+ * @author Paul Kneringer
+ */
+public final class Dictionaries {
+	public static final StringDictionary LABELS = new StringDictionary();
+	public static final StringDictionary ACTIONS = new StringDictionary();
+
+	private Dictionaries() {
+	}
+}
@@ -5,7 +5,11 @@ package model;
  * New form of Change element that includes activitytype labels
  */
 public class EnrichedChange extends ChangeTemplate{
+	//Fixed to the value before activityLabelId was added (see LogEntry)
+	private static final long serialVersionUID = -6118806299952430254L;
 	private String activityLabel = "unknown";
+	//id + 1 of the label in Dictionaries.LABELS, 0 if not resolved yet
+	private transient int activityLabelId;
 	
 	public EnrichedChange(String action, String path) {
 		super(action, path);
@@ -13,7 +17,7 @@ public class EnrichedChange extends ChangeTemplate{
 	
 	public EnrichedChange(String action, String path, String activityLabel) {
 		super(action, path);
-		this.activityLabel = activityLabel;
+		setActivityLabel(activityLabel);
 	}
 	
 	public String getActivityLabel() {
@@ -21,6 +25,16 @@ public class EnrichedChange extends ChangeTemplate{
 	}
 	public void setActivityLabel(String activityLabel) {
 		this.activityLabel = activityLabel;
+		this.activityLabelId = activityLabel == null ? 0 : Dictionaries.LABELS.intern(activityLabel) + 1;
+	}
+
+	/**
+	 * @return id of the activity label in Dictionaries.LABELS
+	 */
+	public int getActivityLabelId() {
+		if (activityLabelId == 0)
+			activityLabelId = Dictionaries.LABELS.intern(activityLabel) + 1;
+		return activityLabelId - 1;
 	}
 
 	@Override
@@ -2,6 +2,7 @@ package model;
 
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
@@ -15,11 +16,15 @@ import org.joda.time.DateTime;
  */
 
 public abstract class LogEntry implements Serializable {
+	//Value before the transient ids were added, so logs saved by earlier versions can still be loaded
+	private static final long serialVersionUID = 4326765487403535048L;
 	protected String startingToken;
 	protected String author;
 	protected DateTime date;
 	protected String comment;
 	protected List<ChangeTemplate> changeList; // changed, modified, added, etc
+	//id + 1 of the commit type in Dictionaries.LABELS, 0 if the majority vote was not calculated yet
+	private transient int typeId;
 
 	public String getStartingToken() {
 		return startingToken;
@@ -59,6 +64,7 @@ public abstract class LogEntry implements Serializable {
 
 	public void setChangeList(List<ChangeTemplate> changeList) {
 		this.changeList = changeList;
+		this.typeId = 0;
 	}
 
 	@Override
@@ -75,9 +81,56 @@ public abstract class LogEntry implements Serializable {
 
 	/**
 	 * Returns the type of the logfile by calculating a majorityvote on changes that happend during the commit
-	 * 
+	 * The vote is only calculated once, it is repeated if the change list is replaced
 	*/
 	public String getType() {
+		return Dictionaries.LABELS.get(getTypeId());
+	}
+
+	/**
+	 * @return id of the commit type (see getType) in Dictionaries.LABELS
+	 */
+	public int getTypeId() {
+		if (typeId == 0)
+			typeId = voteTypeId() + 1;
+		return typeId - 1;
+	}
+
+	/**
+	 * Sets the result of the majority vote if it is already known, e.g. stored in a ColumnarLog
+	 */
+	void setTypeId(int typeId) {
+		this.typeId = typeId + 1;
+	}
+
+	/**
+	 * Majority vote that counts the label ids of the changes in an array
+	 * If several labels share the highest count, the original vote over a HashMap decides in order to keep its results
+	 */
+	private int voteTypeId() {
+		if (changeList.isEmpty())
+			return Dictionaries.LABELS.intern("unknown");
+		int[] votes = new int[Dictionaries.LABELS.size()];
+		int best = -1;
+		boolean tie = false;
+		for (ChangeTemplate c : changeList) {
+			if (!(c instanceof EnrichedChange))
+				return Dictionaries.LABELS.intern(voteType());
+			int label = ((EnrichedChange) c).getActivityLabelId();
+			if (label >= votes.length)
+				votes = Arrays.copyOf(votes, Dictionaries.LABELS.size());
+			votes[label]++;
+			if (best < 0 || label == best || votes[label] > votes[best]) {
+				best = label;
+				tie = false;
+			} else if (votes[label] == votes[best]) {
+				tie = true;
+			}
+		}
+		return tie ? Dictionaries.LABELS.intern(voteType()) : best;
+	}
+
+	private String voteType() {
 		String s ="unknown" ;
 		HashMap<String, Integer> majorityVote = new HashMap<String, Integer>();
 		Integer cnt;
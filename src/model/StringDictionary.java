@@ -0,0 +1,87 @@
+package model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns consecutive integer ids (0, 1, 2, ...) to Strings
+ * Used to store authors, paths and activity labels only once and to refer to them by their id.
+ * Lookups of existing Strings do not block, new Strings are added one at a time, so the dictionary can be used by several threads.
+ * @author Paul Kneringer
+ */
+public class StringDictionary implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private volatile String[] values = new String[16];
+	private int size = 0;
+	private transient ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * Returns the id of the String, the String is added if it is not part of the dictionary yet
+	 * @param value: String that is looked up
+	 * @return id of the String
+	 */
+	public int intern(String value) {
+		Integer id = ids.get(value);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = ids.get(value);
+			if (id != null)
+				return id;
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size] = value;
+			ids.put(value, size);
+			return size++;
+		}
+	}
+
+	/**
+	 * @param value: String that is looked up
+	 * @return id of the String, -1 if it is not part of the dictionary
+	 */
+	public int indexOf(String value) {
+		Integer id = ids.get(value);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param id: id returned by intern
+	 * @return the String with the given id
+	 */
+	public String get(int id) {
+		return values[id];
+	}
+
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * @return all Strings ordered by their id
+	 */
+	public Collection<String> values() {
+		return Collections.unmodifiableList(Arrays.asList(values).subList(0, size()));
+	}
+
+	/**
+	 * @return copy of all Strings ordered by their id
+	 */
+	public ArrayList<String> toList() {
+		return new ArrayList<String>(values());
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		ids = new ConcurrentHashMap<String, Integer>();
+		for (int i = 0; i < size; i++) {
+			ids.put(values[i], i);
+		}
+	}
+}
@@ -1,8 +1,6 @@
 package model.graph;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.HashMap;
 
 import javax.swing.JDialog;
 
@@ -31,7 +29,6 @@ import javafx.scene.paint.Color;
 import model.ChangeTemplate;
 import model.EnrichedChange;
 import model.LogEntry;
-import sun.rmi.log.ReliableLog.LogFile;
 
 /**
  * One node that is displayed in an Area- or Linechart object
@@ -39,17 +36,18 @@ import sun.rmi.log.ReliableLog.LogFile;
  * Major changes to fit the requirements of this project
  */
 public class ChartNode extends StackPane {
-	private TableView<EnrichedChange> fileTable = new TableView<EnrichedChange>();
-	private TableView<LogEntry> commitTable = new TableView<LogEntry>();
-	private boolean filelevel;
-	private int timeUnit = 0;
-	private HashMap<Integer,ArrayList<LogEntry>> commits = null;
-	private HashMap<Integer,ArrayList<EnrichedChange>> files = null;
 	
-	public ChartNode(int priorValue, int value, int max, HashMap<Integer,ArrayList<LogEntry>> commits, HashMap<Integer,  ArrayList<EnrichedChange>> files, int timeUnit) {
-		this.timeUnit = timeUnit;
-		this.files = files;
-		this.commits = commits;
+	/**
+	 * The values are only captured by the mouse handlers, the node keeps no further references
+	 * @param priorValue: Value of the previous data point
+	 * @param value: Value of the data point
+	 * @param max: Maximum value of the chart
+	 * @param type: Activity type of the chart
+	 * @param filelevel: true if the chart displays file changes, false if it displays commits
+	 * @param drillDown: Resolves the commits or file changes of the data point
+	 * @param timeUnit: Unit of the data point
+	 */
+	public ChartNode(int priorValue, int value, int max, String type, boolean filelevel, DrillDown drillDown, int timeUnit) {
 		setPrefSize(10, 10);
 		double relativPos = (double) value/ (double)max;
 		//Calculating, where the point is located in the graph so that the labels are not cut off 
@@ -58,92 +56,20 @@ public class ChartNode extends StackPane {
 		else 
 			setAlignment(Pos.TOP_CENTER);
 		//System.out.println(boundsInScreen);
-		final Label label = createLabel(priorValue, value);
-		
-		if(commits == null)
-			filelevel = true;
-		if(files == null)
-			filelevel = false;
 		
 		setOnMouseClicked(new EventHandler<MouseEvent>() {
 
 			@Override
 			public void handle(MouseEvent event) {
-				Alert alert = new Alert(AlertType.INFORMATION);
-				alert.setTitle("Information Dialog");	
-				alert.setResizable(true);
-				
-				if(filelevel) {
-					alert.setHeaderText("List of all filechanges during the selected timeframe");
-					fileTable = new TableView<EnrichedChange>();
-					//alert.setContentText(files.toString());
-					
-					//Action
-					TableColumn<EnrichedChange, String> actionCol = new TableColumn<EnrichedChange, String>("Action");
-					actionCol.setMinWidth(50);
-					//actionCol.prefWidthProperty().bind(alert.widthProperty().divide(3));
-					actionCol.setCellValueFactory(new PropertyValueFactory<EnrichedChange,String>("action"));
-					//Path
-					TableColumn<EnrichedChange, String> pathCol = new TableColumn<EnrichedChange, String>("Path");
-					pathCol.setMinWidth(300);
-					pathCol.setCellValueFactory(new PropertyValueFactory<EnrichedChange,String>("path"));
-					//ActivityLabel
-					TableColumn<EnrichedChange, String> activityCol = new TableColumn<EnrichedChange, String>("Activity Label");
-					activityCol.setMinWidth(150);
-					activityCol.setCellValueFactory(new PropertyValueFactory<EnrichedChange,String>("activityLabel"));
-					//Add to table and display
-					fileTable.getColumns().addAll(actionCol, pathCol, activityCol);
-					fileTable.setItems(getFileChanges());
-					alert.getDialogPane().setContent(fileTable);
-					
-				}
-				else {
-					alert.setHeaderText("List of all commits during the selected timeframe");
-					commitTable = new TableView<LogEntry>();
-					//Author
-					TableColumn<LogEntry, String> authorCol = new TableColumn<LogEntry, String>("Author");
-					authorCol.setMinWidth(200);
-					authorCol.setCellValueFactory(new PropertyValueFactory<LogEntry,String>("author"));
-					//Date
-					TableColumn<LogEntry, DateTime> dateCol = new TableColumn<LogEntry, DateTime>("Date");
-					//dateCol.setMinWidth(150);
-					//Solution to alter the displayed DateTime value
-					dateCol.setCellFactory(column -> {
-				        TableCell<LogEntry, DateTime> cell = new TableCell<LogEntry, DateTime>() {
-				            private SimpleDateFormat format = new SimpleDateFormat("dd.MM.yyyy");
-
-				            @Override
-				            protected void updateItem(DateTime item, boolean empty) {
-				                super.updateItem(item, empty);
-				                if(empty) {
-				                    setText(null);
-				                }
-				                else {
-				                    this.setText(format.format(item.toDate()));
-				                }
-				            }
-				        };
-				        return cell;
-				    });
-					dateCol.setCellValueFactory(new PropertyValueFactory<LogEntry, DateTime>("Date"));
-					//Comment
-					TableColumn<LogEntry, String> commentCol = new TableColumn<LogEntry, String>("Comment");
-					commentCol.setMinWidth(400);
-					commentCol.setCellValueFactory(new PropertyValueFactory<LogEntry,String>("comment"));
-					
-					commitTable.getColumns().addAll(authorCol,commentCol, dateCol);
-					commitTable.setItems(getCommits());
-					alert.getDialogPane().setContent(commitTable);
-					
-				}	
-				alert.showAndWait();
-				
+				showDetails(type, filelevel, drillDown, timeUnit);
 			}
 		});
 		
 		setOnMouseEntered(new EventHandler<MouseEvent>() {
 			@Override
 			public void handle(MouseEvent mouseEvent) {
+				//The label is created when it is displayed, the node itself only stores the values
+				final Label label = createLabel(priorValue, value);
 				label.toFront();
 				getChildren().add(label);
 				setCursor(Cursor.CROSSHAIR);
@@ -160,6 +86,86 @@ public class ChartNode extends StackPane {
 		});
 	}
 
+	/**
+	 * Displays the commits or file changes of one data point in a dialog
+	 * Also used by charts that do not consist of ChartNode objects (see GUI.ActivityCanvas)
+	 * @param type: Activity type of the chart
+	 * @param filelevel: true: file changes, false: commits
+	 * @param drillDown: Resolves the commits or file changes of the data point
+	 * @param timeUnit: Unit of the data point
+	 */
+	public static void showDetails(String type, boolean filelevel, DrillDown drillDown, int timeUnit) {
+		Alert alert = new Alert(AlertType.INFORMATION);
+		alert.setTitle("Information Dialog");	
+		alert.setResizable(true);
+		
+		if(filelevel) {
+			alert.setHeaderText("List of all filechanges during the selected timeframe");
+			TableView<EnrichedChange> fileTable = new TableView<EnrichedChange>();
+			//alert.setContentText(files.toString());
+			
+			//Action
+			TableColumn<EnrichedChange, String> actionCol = new TableColumn<EnrichedChange, String>("Action");
+			actionCol.setMinWidth(50);
+			//actionCol.prefWidthProperty().bind(alert.widthProperty().divide(3));
+			actionCol.setCellValueFactory(new PropertyValueFactory<EnrichedChange,String>("action"));
+			//Path
+			TableColumn<EnrichedChange, String> pathCol = new TableColumn<EnrichedChange, String>("Path");
+			pathCol.setMinWidth(300);
+			pathCol.setCellValueFactory(new PropertyValueFactory<EnrichedChange,String>("path"));
+			//ActivityLabel
+			TableColumn<EnrichedChange, String> activityCol = new TableColumn<EnrichedChange, String>("Activity Label");
+			activityCol.setMinWidth(150);
+			activityCol.setCellValueFactory(new PropertyValueFactory<EnrichedChange,String>("activityLabel"));
+			//Add to table and display
+			fileTable.getColumns().addAll(actionCol, pathCol, activityCol);
+			fileTable.setItems(getFileChanges(type, drillDown, timeUnit));
+			alert.getDialogPane().setContent(fileTable);
+			
+		}
+		else {
+			alert.setHeaderText("List of all commits during the selected timeframe");
+			TableView<LogEntry> commitTable = new TableView<LogEntry>();
+			//Author
+			TableColumn<LogEntry, String> authorCol = new TableColumn<LogEntry, String>("Author");
+			authorCol.setMinWidth(200);
+			authorCol.setCellValueFactory(new PropertyValueFactory<LogEntry,String>("author"));
+			//Date
+			TableColumn<LogEntry, DateTime> dateCol = new TableColumn<LogEntry, DateTime>("Date");
+			//dateCol.setMinWidth(150);
+			//Solution to alter the displayed DateTime value
+			dateCol.setCellFactory(column -> {
+		        TableCell<LogEntry, DateTime> cell = new TableCell<LogEntry, DateTime>() {
+		            private SimpleDateFormat format = new SimpleDateFormat("dd.MM.yyyy");
+
+		            @Override
+		            protected void updateItem(DateTime item, boolean empty) {
+		                super.updateItem(item, empty);
+		                if(empty) {
+		                    setText(null);
+		                }
+		                else {
+		                    this.setText(format.format(item.toDate()));
+		                }
+		            }
+		        };
+		        return cell;
+		    });
+			dateCol.setCellValueFactory(new PropertyValueFactory<LogEntry, DateTime>("Date"));
+			//Comment
+			TableColumn<LogEntry, String> commentCol = new TableColumn<LogEntry, String>("Comment");
+			commentCol.setMinWidth(400);
+			commentCol.setCellValueFactory(new PropertyValueFactory<LogEntry,String>("comment"));
+			
+			commitTable.getColumns().addAll(authorCol,commentCol, dateCol);
+			commitTable.setItems(getCommits(type, drillDown, timeUnit));
+			alert.getDialogPane().setContent(commitTable);
+			
+		}	
+		alert.showAndWait();
+		
+	}
+
 	private Label createLabel(int priorValue, int value) {
 		final Label label = new Label(value + "");
 		label.getStyleClass().addAll("default-color0", "chart-line-symbol", "chart-series-line");
@@ -179,22 +185,18 @@ public class ChartNode extends StackPane {
 		return label;
 	}
 	
-	private ObservableList<EnrichedChange> getFileChanges() {
+	private static ObservableList<EnrichedChange> getFileChanges(String type, DrillDown drillDown, int timeUnit) {
 		ObservableList<EnrichedChange> ol = FXCollections.observableArrayList();
-		if(files != null) {
-			for(EnrichedChange ec : files.get(timeUnit)) {
-				ol.add(ec);
-			}
+		if(drillDown != null) {
+			ol.addAll(drillDown.getFileChanges(type, timeUnit));
 		}
 		return ol;
 	}
 	
-	private ObservableList<LogEntry> getCommits() {
+	private static ObservableList<LogEntry> getCommits(String type, DrillDown drillDown, int timeUnit) {
 		ObservableList<LogEntry> ol = FXCollections.observableArrayList();
-		if(commits != null) {
-			for(LogEntry le : commits.get(timeUnit)) {
-				ol.add(le);
-			}
+		if(drillDown != null) {
+			ol.addAll(drillDown.getCommits(type, timeUnit));
 		}
 		return ol;
 	}
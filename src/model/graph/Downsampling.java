@@ -0,0 +1,74 @@
+package model.graph;
+
+/**
+ * Reduces the number of points of a chart series before it is displayed
+ * Uses the Largest-Triangle-Three-Buckets algorithm (Steinarsson, 2013): the points are split into buckets of equal
+ * size, from every bucket the point is kept that forms the largest triangle with the point kept from the previous
+ * bucket and the average of the next bucket. Peaks and valleys of the series survive, flat parts are thinned out.
+ * The first and the last point are always kept.
+ * @author Paul Kneringer
+ */
+public final class Downsampling {
+
+	private Downsampling() {
+	}
+
+	/**
+	 * @param x: x values of the points, ascending
+	 * @param y: y values of the points
+	 * @param n: number of points (x and y may be longer)
+	 * @param threshold: maximum number of points that are kept
+	 * @return indices of the kept points, ascending
+	 */
+	public static int[] largestTriangleThreeBuckets(int[] x, int[] y, int n, int threshold) {
+		if (threshold >= n || threshold < 3) {
+			int[] all = new int[n];
+			for (int i = 0; i < n; i++) {
+				all[i] = i;
+			}
+			return all;
+		}
+		int[] sampled = new int[threshold];
+		//The first and last point are kept, the other points are split into threshold - 2 buckets
+		int buckets = threshold - 2;
+		int a = 0;
+		sampled[0] = 0;
+		for (int i = 0; i < threshold - 2; i++) {
+			//Average of the next bucket (the last point for the last bucket)
+			int nextStart = bucketStart(i + 1, buckets, n);
+			int nextEnd = i + 2 > buckets ? n : bucketStart(i + 2, buckets, n);
+			double avgX = 0;
+			double avgY = 0;
+			for (int j = nextStart; j < nextEnd; j++) {
+				avgX += x[j];
+				avgY += y[j];
+			}
+			avgX /= nextEnd - nextStart;
+			avgY /= nextEnd - nextStart;
+
+			//Point of the current bucket with the largest triangle
+			int start = bucketStart(i, buckets, n);
+			int end = nextStart;
+			double maxArea = -1;
+			int next = start;
+			for (int j = start; j < end; j++) {
+				double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+				if (area > maxArea) {
+					maxArea = area;
+					next = j;
+				}
+			}
+			sampled[i + 1] = next;
+			a = next;
+		}
+		sampled[threshold - 1] = n - 1;
+		return sampled;
+	}
+
+	/**
+	 * @return index of the first point of the bucket, bucket "buckets" starts with the last point
+	 */
+	private static int bucketStart(int bucket, int buckets, int n) {
+		return 1 + (int) ((long) bucket * (n - 2) / buckets);
+	}
+}
@@ -0,0 +1,29 @@
+package model.graph;
+
+import java.util.List;
+
+import model.EnrichedChange;
+import model.LogEntry;
+
+/**
+ * Resolves the commits and file changes behind one data point of a chart
+ * ChartNode objects only store the activity type and the unit (day, week, month, percentage) of their data point,
+ * the commits and changes are looked up when the details of the point are displayed.
+ * @author Paul Kneringer
+ */
+public interface DrillDown {
+
+	/**
+	 * @param type: Commit type
+	 * @param unit: Unit of the data point on the x axis
+	 * @return Commits of the type in the unit
+	 */
+	List<LogEntry> getCommits(String type, int unit);
+
+	/**
+	 * @param type: Activity label
+	 * @param unit: Unit of the data point on the x axis
+	 * @return File changes with the label in the unit
+	 */
+	List<EnrichedChange> getFileChanges(String type, int unit);
+}
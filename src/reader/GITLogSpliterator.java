@@ -0,0 +1,104 @@
+package reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import model.LogEntry;
+
+/**
+ * Spliterator over the commits of a part of a GIT log file
+ * Splits at the commit header closest to the middle of the remaining part, so that
+ * parallel streams can parse the parts of one file on different threads.
+ * @author Paul Kneringer
+ */
+class GITLogSpliterator implements Spliterator<LogEntry> {
+	//Parts smaller than this are parsed by one thread
+	private static final long MIN_SPLIT_SIZE = 1L << 18;
+	//Rough size of one commit in bytes, only used for the size estimate
+	private static final long BYTES_PER_COMMIT = 256;
+
+	private FileChannel channel;
+	private long start;
+	private long end;
+	private MappedGITLogReader reader = null;
+	//Bytes parsed by this spliterator and the ones split from it, may be null
+	private LongAdder parsed;
+
+	/**
+	 * @param channel: Channel of the GIT log file
+	 * @param start: Offset of the first commit header
+	 * @param end: Offset after the last byte of the part
+	 */
+	GITLogSpliterator(FileChannel channel, long start, long end) {
+		this(channel, start, end, null);
+	}
+
+	/**
+	 * @param parsed: Counter of the parsed bytes, shared by all parts of the file
+	 */
+	GITLogSpliterator(FileChannel channel, long start, long end, LongAdder parsed) {
+		this.channel = channel;
+		this.start = start;
+		this.end = end;
+		this.parsed = parsed;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super LogEntry> action) {
+		if (reader == null)
+			reader = new MappedGITLogReader(channel, start, end);
+		LogEntry entry;
+		long before = reader.getPosition();
+		try {
+			entry = reader.readNext();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (parsed != null)
+			parsed.add((entry == null ? end : reader.getPosition()) - before);
+		if (entry == null)
+			return false;
+		action.accept(entry);
+		return true;
+	}
+
+	/**
+	 * Returns the first half of the remaining part, this spliterator continues with the second half
+	 */
+	@Override
+	public Spliterator<LogEntry> trySplit() {
+		long from = position();
+		if (end - from < MIN_SPLIT_SIZE)
+			return null;
+		long mid;
+		try {
+			mid = MappedGITLogReader.nextCommitStart(channel, from + (end - from) / 2, end);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (mid <= from || mid >= end)
+			return null;
+		GITLogSpliterator prefix = new GITLogSpliterator(channel, from, mid, parsed);
+		start = mid;
+		reader = null;
+		return prefix;
+	}
+
+	@Override
+	public long estimateSize() {
+		return (end - position()) / BYTES_PER_COMMIT;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	private long position() {
+		return reader == null ? start : reader.getPosition();
+	}
+}
@@ -2,7 +2,13 @@ package reader;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Written by Saimir Bala 
@@ -22,4 +28,29 @@ public interface LogReader<LogEntry> extends Closeable{
 	 */
 	public LogEntry readNext() throws IOException;
 	
+	/**
+	 * Streams the log entries while they are read instead of collecting them in a list first
+	 * IOExceptions are rethrown as UncheckedIOExceptions
+	 * @return Stream of the remaining log entries
+	 */
+	public default Stream<LogEntry> stream() {
+		Spliterator<LogEntry> spliterator = new Spliterators.AbstractSpliterator<LogEntry>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super LogEntry> action) {
+				LogEntry entry;
+				try {
+					entry = readNext();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				if (entry == null)
+					return false;
+				action.accept(entry);
+				return true;
+			}
+		};
+		return StreamSupport.stream(spliterator, false);
+	}
+	
 }
@@ -0,0 +1,442 @@
+package reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import model.Change;
+import model.ChangeTemplate;
+import model.LogEntry;
+import model.git.GITFileChanges;
+import model.git.GITLogEntry;
+
+/**
+ * Reads GIT log files (git log --reverse --name-status) by memory-mapping them
+ * instead of reading them line by line with a RandomAccessFile.
+ * The raw bytes are scanned for the commit, author, date, message and change-list boundaries;
+ * Strings are only created for the fields that end up in the GITLogEntry objects.
+ * Files larger than one mapping window are mapped piece by piece.
+ *
+ * Differences to the GITLogReader: text is decoded as UTF-8, paths may contain spaces
+ * and messages that consist of several paragraphs are not mistaken for change lists.
+ * @author Paul Kneringer
+ */
+public class MappedGITLogReader implements LogReader<LogEntry>, Closeable {
+	private static final long WINDOW_SIZE = 1L << 28;
+	private static final int SCAN_SIZE = 1 << 20;
+	private static final byte[] COMMIT_HEADER = "\ncommit ".getBytes(StandardCharsets.US_ASCII);
+	private static final String[] MONTHS = { "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct",
+			"nov", "dec" };
+	private static final DateTimeFormatter GIT_FMT = DateTimeFormat.forPattern("EEE MMM dd HH:mm:ss yyyy Z")
+			.withLocale(Locale.ENGLISH);
+
+	//possible extension to the software, identifying only A,M,D opperations
+	private boolean onlyFileManipulations = false;
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private long end;
+
+	//Currently mapped part of the file
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long windowEnd;
+
+	//Position of the next unread byte and boundaries of the current line (absolute file offsets)
+	private long pos;
+	private long lineStart;
+	private long lineEnd;
+
+	private byte[] lastAuthor = new byte[0];
+	private String lastAuthorString = "";
+	private HashMap<Integer, DateTimeZone> zones = new HashMap<Integer, DateTimeZone>();
+
+	/**
+	 * @param file: Location of the GIT log file
+	 * @throws IOException
+	 */
+	public MappedGITLogReader(String file) throws IOException {
+		raf = new RandomAccessFile(file, "r");
+		channel = raf.getChannel();
+		end = channel.size();
+		pos = 0;
+	}
+
+	/**
+	 * Reads the commits located between start and end of an already opened file
+	 * Used to read parts of one file concurrently, the channel is not closed by this reader
+	 * @param channel: Channel of the GIT log file
+	 * @param start: Offset of the first commit header of the part
+	 * @param end: Offset after the last byte of the part
+	 */
+	MappedGITLogReader(FileChannel channel, long start, long end) {
+		this.channel = channel;
+		this.end = end;
+		pos = start;
+	}
+
+	/**
+	 * Searches the file for the first commit header that starts at or after the offset from
+	 * @param channel: Channel of the GIT log file
+	 * @param from: Offset where the search starts
+	 * @param end: Offset where the search stops
+	 * @return Offset of the commit header, never below from, end if there is none
+	 * @throws IOException
+	 */
+	static long nextCommitStart(FileChannel channel, long from, long end) throws IOException {
+		//A header at the very beginning of the file is not preceded by a line break
+		long p = from == 0 ? 0 : from - 1;
+		if (from == 0 && end >= COMMIT_HEADER.length - 1) {
+			MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, COMMIT_HEADER.length - 1);
+			boolean match = true;
+			for (int k = 1; k < COMMIT_HEADER.length && match; k++)
+				match = head.get(k - 1) == COMMIT_HEADER[k];
+			if (match)
+				return 0;
+		}
+		while (p < end) {
+			long size = Math.min(SCAN_SIZE + COMMIT_HEADER.length, end - p);
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, p, size);
+			for (int i = 0; i + COMMIT_HEADER.length <= size; i++) {
+				int k = 0;
+				while (k < COMMIT_HEADER.length && buf.get(i + k) == COMMIT_HEADER[k])
+					k++;
+				if (k == COMMIT_HEADER.length)
+					return p + i + 1;
+			}
+			if (p + size >= end)
+				break;
+			p += SCAN_SIZE;
+		}
+		return end;
+	}
+
+	@Override
+	public List<LogEntry> readAll() throws IOException {
+		List<LogEntry> logEntries = new ArrayList<LogEntry>();
+		LogEntry entry;
+		while ((entry = readNext()) != null) {
+			logEntries.add(entry);
+		}
+		return logEntries;
+	}
+
+	/**
+	 * Streams the remaining commits of the file, the stream can be split at commit headers
+	 * and parsed in parallel (see GITLogSpliterator)
+	 */
+	@Override
+	public Stream<LogEntry> stream() {
+		return StreamSupport.stream(new GITLogSpliterator(channel, pos, end), false);
+	}
+
+	/**
+	 * @return Offset of the next unread byte of the file
+	 */
+	public long getPosition() {
+		return pos;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see reader.LogReader#readNext()
+	 */
+	@Override
+	public LogEntry readNext() throws IOException {
+		//Skip everything up to the next commit header
+		do {
+			if (!nextLine())
+				return null;
+		} while (!lineStartsWith("commit "));
+		String revision = lineString(7);
+
+		if (!nextLine())
+			return null;
+		boolean merge = false;
+		if (lineStartsWith("Merge")) {
+			merge = true;
+			nextLine();
+		}
+		String author = lineStartsWith("Author: ") ? readAuthor(8) : "";
+
+		nextLine();
+		DateTime date = readDate();
+
+		String message = readMessage();
+		// When a merge happens, GIT automatically generates a message describing it.
+		// Plus, there is no change-list to be read.
+		List<ChangeTemplate> changeList = merge ? new ArrayList<ChangeTemplate>() : readChangeList();
+
+		return new GITLogEntry(revision, author, date, message, changeList);
+	}
+
+	/**
+	 * Reads the message lines (indented by GIT) that follow the date line
+	 * The first line is trimmed, following lines are appended as they are
+	 */
+	private String readMessage() throws IOException {
+		StringBuilder msg = new StringBuilder();
+		boolean first = true;
+		long mark = pos;
+		while (nextLine()) {
+			if (lineStart == lineEnd) {
+				mark = pos;
+				continue;
+			}
+			if (byteAt(lineStart) != ' ') {
+				break;
+			}
+			if (first) {
+				msg.append(lineString(0).trim());
+				first = false;
+			} else {
+				msg.append(lineString(0));
+			}
+			mark = pos;
+		}
+		pos = mark;
+		return msg.toString();
+	}
+
+	/**
+	 * Reads the change lines until an empty line or the next commit header is reached
+	 */
+	private List<ChangeTemplate> readChangeList() throws IOException {
+		List<ChangeTemplate> changeList = new ArrayList<ChangeTemplate>();
+		while (nextLine()) {
+			if (lineStart == lineEnd)
+				break;
+			if (lineStartsWith("commit ")) {
+				pos = lineStart;
+				break;
+			}
+			long i = lineStart;
+			while (i < lineEnd && !isWhitespace(byteAt(i)))
+				i++;
+			String action = readAction(lineStart, i);
+			while (i < lineEnd && isWhitespace(byteAt(i)))
+				i++;
+			long pathStart = i;
+			while (i < lineEnd && byteAt(i) != '\t')
+				i++;
+			while (i > pathStart && isWhitespace(byteAt(i - 1)))
+				i--;
+			if (onlyFileManipulations && action != GITFileChanges.ADDED && action != GITFileChanges.MODIFIED
+					&& action != GITFileChanges.DELETED)
+				continue;
+			changeList.add(new Change(action, decode(pathStart, i)));
+		}
+		return changeList;
+	}
+
+	/**
+	 * Returns the shared constants for the common actions instead of a new String per change
+	 */
+	private String readAction(long from, long to) {
+		if (to - from == 1) {
+			switch (byteAt(from)) {
+			case 'A':
+				return GITFileChanges.ADDED;
+			case 'M':
+				return GITFileChanges.MODIFIED;
+			case 'D':
+				return GITFileChanges.DELETED;
+			}
+		}
+		return decode(from, to);
+	}
+
+	/**
+	 * Consecutive commits are often made by the same author, the previous String is reused in this case
+	 */
+	private String readAuthor(int offset) {
+		long from = lineStart + offset;
+		int len = (int) (lineEnd - from);
+		boolean same = len == lastAuthor.length;
+		for (int i = 0; same && i < len; i++) {
+			same = byteAt(from + i) == lastAuthor[i];
+		}
+		if (!same) {
+			lastAuthor = new byte[len];
+			for (int i = 0; i < len; i++) {
+				lastAuthor[i] = byteAt(from + i);
+			}
+			lastAuthorString = new String(lastAuthor, StandardCharsets.UTF_8);
+		}
+		return lastAuthorString;
+	}
+
+	/**
+	 * Parses the date line (Date:   Fri Apr 25 07:29:47 2014 -0700) directly from the bytes
+	 * Falls back to the Joda formatter if the line does not have the expected shape
+	 */
+	private DateTime readDate() throws IOException {
+		long i = lineStart;
+		while (i < lineEnd && byteAt(i) != ':')
+			i++;
+		long p = skipSpaces(skipToken(skipSpaces(i + 1)));
+		try {
+			int month = -1;
+			if (p + 3 <= lineEnd) {
+				String m = new String(new char[] { lower(byteAt(p)), lower(byteAt(p + 1)), lower(byteAt(p + 2)) });
+				for (int k = 0; k < MONTHS.length; k++) {
+					if (MONTHS[k].equals(m))
+						month = k + 1;
+				}
+			}
+			p = skipSpaces(skipToken(p));
+			int[] num = new int[1];
+			p = skipSpaces(readNumber(p, num));
+			int day = num[0];
+			p = readNumber(p, num) + 1;
+			int hour = num[0];
+			p = readNumber(p, num) + 1;
+			int minute = num[0];
+			p = skipSpaces(readNumber(p, num));
+			int second = num[0];
+			p = skipSpaces(readNumber(p, num));
+			int year = num[0];
+			int sign = byteAt(p) == '-' ? -1 : 1;
+			readNumber(p + 1, num);
+			int offset = sign * (num[0] / 100 * 60 + num[0] % 100);
+			if (month < 0)
+				throw new IllegalArgumentException();
+			DateTimeZone zone = zones.get(offset);
+			if (zone == null) {
+				zone = DateTimeZone.forOffsetMillis(offset * 60 * 1000);
+				zones.put(offset, zone);
+			}
+			return new DateTime(year, month, day, hour, minute, second, zone).withZone(DateTimeZone.getDefault());
+		} catch (IllegalArgumentException e) {
+			if (i >= lineEnd)
+				throw new IOException("Date line expected at offset " + lineStart);
+			return GIT_FMT.parseDateTime(decode(i + 1, lineEnd).trim());
+		}
+	}
+
+	private long readNumber(long p, int[] num) {
+		int n = 0;
+		long start = p;
+		while (p < lineEnd && byteAt(p) >= '0' && byteAt(p) <= '9') {
+			n = n * 10 + (byteAt(p) - '0');
+			p++;
+		}
+		if (p == start)
+			throw new IllegalArgumentException();
+		num[0] = n;
+		return p;
+	}
+
+	private long skipSpaces(long p) {
+		while (p < lineEnd && isWhitespace(byteAt(p)))
+			p++;
+		return p;
+	}
+
+	private long skipToken(long p) {
+		while (p < lineEnd && !isWhitespace(byteAt(p)))
+			p++;
+		return p;
+	}
+
+	/**
+	 * Moves lineStart/lineEnd to the next line of the file, remapping the window if the line crosses its end
+	 * @return false if the end of the file is reached
+	 */
+	private boolean nextLine() throws IOException {
+		if (pos >= end)
+			return false;
+		if (window == null || pos < windowStart || pos >= windowEnd)
+			map(pos);
+		long i = pos;
+		while (true) {
+			if (i >= windowEnd) {
+				if (windowEnd >= end)
+					break;
+				//line crosses the mapped part, map again starting at the line
+				map(pos);
+				i = pos;
+				continue;
+			}
+			if (window.get((int) (i - windowStart)) == '\n')
+				break;
+			i++;
+		}
+		lineStart = pos;
+		lineEnd = i;
+		pos = Math.min(i + 1, end);
+		if (lineEnd > lineStart && byteAt(lineEnd - 1) == '\r')
+			lineEnd--;
+		return true;
+	}
+
+	private void map(long from) throws IOException {
+		long size = Math.min(WINDOW_SIZE, end - from);
+		if (window != null && from == windowStart && windowEnd < end) {
+			//a single line does not fit into the window
+			size = Math.min(Integer.MAX_VALUE, Math.max(size, 2 * (windowEnd - windowStart)));
+		}
+		window = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+		windowStart = from;
+		windowEnd = from + size;
+	}
+
+	private byte byteAt(long i) {
+		return window.get((int) (i - windowStart));
+	}
+
+	private boolean lineStartsWith(String prefix) {
+		if (lineEnd - lineStart < prefix.length())
+			return false;
+		for (int i = 0; i < prefix.length(); i++) {
+			if (byteAt(lineStart + i) != prefix.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private String lineString(int offset) {
+		return decode(lineStart + offset, lineEnd);
+	}
+
+	private String decode(long from, long to) {
+		byte[] bytes = new byte[(int) (to - from)];
+		window.position((int) (from - windowStart));
+		window.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t';
+	}
+
+	private static char lower(byte b) {
+		return (char) (b >= 'A' && b <= 'Z' ? b + 32 : b);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		window = null;
+		if (raf != null)
+			raf.close();
+	}
+}
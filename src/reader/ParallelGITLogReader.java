@@ -0,0 +1,203 @@
+package reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import model.LogEntry;
+import model.git.GITLog;
+
+/**
+ * Reads one GIT log file with several threads
+ * The file is split into chunks at commit boundaries, the chunks are parsed by MappedGITLogReaders on a fork-join pool
+ * and the resulting entries are joined in the original (--reverse) order of the file.
+ * @author Paul Kneringer
+ */
+public class ParallelGITLogReader implements LogReader<LogEntry>, Closeable {
+	//Chunks smaller than this are not worth a separate task
+	private static final long MIN_CHUNK_SIZE = 1L << 20;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private RandomAccessFile raf;
+	private FileChannel channel;
+	private ForkJoinPool pool;
+	private List<LogEntry> entries = null;
+	private int next = 0;
+	//Bytes parsed by stream(), read by other threads to report the progress
+	private LongAdder parsed = new LongAdder();
+
+	/**
+	 * Uses the common fork-join pool
+	 * @param file: Location of the GIT log file
+	 * @throws IOException
+	 */
+	public ParallelGITLogReader(String file) throws IOException {
+		this(file, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param file: Location of the GIT log file
+	 * @param pool: Pool that parses the chunks of the file (readAll, readNext and stream(Function))
+	 * @throws IOException
+	 */
+	public ParallelGITLogReader(String file, ForkJoinPool pool) throws IOException {
+		raf = new RandomAccessFile(file, "r");
+		channel = raf.getChannel();
+		this.pool = pool;
+	}
+
+	/**
+	 * Reads the whole file and creates the Log object
+	 * @return GITLog containing all commits of the file
+	 * @throws IOException
+	 */
+	public GITLog readLog() throws IOException {
+		return new GITLog(readAll());
+	}
+
+	@Override
+	public List<LogEntry> readAll() throws IOException {
+		long[] bounds = split();
+		try {
+			return pool.invoke(new ChunkTask(bounds, 0, bounds.length - 1));
+		} catch (UncheckedIOException e) {
+			//exceptions of other worker threads may be wrapped once more by the pool
+			Throwable t = e;
+			while (!(t instanceof IOException) && t.getCause() != null)
+				t = t.getCause();
+			if (t instanceof IOException)
+				throw (IOException) t;
+			throw e;
+		}
+	}
+
+	/**
+	 * The file is read completely by the first call, following calls return the stored entries one by one
+	 */
+	@Override
+	public LogEntry readNext() throws IOException {
+		if (entries == null)
+			entries = readAll();
+		if (next >= entries.size())
+			return null;
+		return entries.get(next++);
+	}
+
+	/**
+	 * Streams all commits of the file as a parallel stream, the order of the file is kept
+	 * Note: The pool of the constructor does not apply here. Like every parallel stream, the terminal operation runs
+	 * in the pool of the thread that starts it, i.e. in the common pool unless it is started by a task of another
+	 * fork-join pool. Use stream(Function) to run it in the pool of the reader.
+	 */
+	@Override
+	public Stream<LogEntry> stream() {
+		try {
+			return StreamSupport.stream(new GITLogSpliterator(channel, 0, channel.size(), parsed), true);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Runs an operation on the parallel stream of the file in the pool of the reader, e.g. a bounded pool
+	 * @param operation: Function that applies the terminal operation to the stream
+	 * @return Result of the terminal operation
+	 */
+	public <R> R stream(Function<Stream<LogEntry>, R> operation) {
+		return pool.submit(() -> operation.apply(stream())).join();
+	}
+
+	/**
+	 * Bytes of the file that were parsed by stream() so far, can be called from any thread
+	 * The parts of the file are parsed in parallel, so the parsed bytes are not necessarily at the start of the file.
+	 */
+	public long getBytesParsed() {
+		return parsed.sum();
+	}
+
+	/**
+	 * @return Size of the file in bytes
+	 * @throws IOException
+	 */
+	public long getSize() throws IOException {
+		return channel.size();
+	}
+
+	/**
+	 * Calculates the chunk boundaries, every boundary is the offset of a commit header
+	 * @return Offsets of the chunks, the last element is the size of the file
+	 */
+	private long[] split() throws IOException {
+		long size = channel.size();
+		long chunks = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, size / MIN_CHUNK_SIZE));
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(0L);
+		for (long k = 1; k < chunks; k++) {
+			long b = MappedGITLogReader.nextCommitStart(channel, k * size / chunks, size);
+			//Several offsets can lead to the same header if a commit is larger than a chunk
+			if (b > bounds.get(bounds.size() - 1) && b < size)
+				bounds.add(b);
+		}
+		bounds.add(size);
+		long[] ret = new long[bounds.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = bounds.get(i);
+		}
+		return ret;
+	}
+
+	/**
+	 * Parses the chunks from..to, splits the range in halves until only one chunk is left
+	 */
+	private class ChunkTask extends RecursiveTask<List<LogEntry>> {
+		private static final long serialVersionUID = 1L;
+		private long[] bounds;
+		private int from;
+		private int to;
+
+		ChunkTask(long[] bounds, int from, int to) {
+			this.bounds = bounds;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<LogEntry> compute() {
+			if (to - from == 1) {
+				MappedGITLogReader reader = new MappedGITLogReader(channel, bounds[from], bounds[to]);
+				try {
+					return reader.readAll();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			int mid = (from + to) >>> 1;
+			ChunkTask left = new ChunkTask(bounds, from, mid);
+			ChunkTask right = new ChunkTask(bounds, mid, to);
+			right.fork();
+			List<LogEntry> ret = left.compute();
+			ret.addAll(right.join());
+			return ret;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		raf.close();
+	}
+}
@@ -0,0 +1,165 @@
+package snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.joda.time.DateTime;
+
+import model.ColumnarLog;
+
+/**
+ * Header of a snapshot file: magic number, format version and summary statistics of the log
+ * The header has a fixed size, so the summary can be read without decoding the rest of the file.
+ * @author Paul Kneringer
+ */
+public class SnapshotHeader {
+	//"AVCS"
+	public static final int MAGIC = 0x41564353;
+	//Version 2 adds the block index and the stored aggregates at the end of the file
+	public static final short VERSION = 2;
+	public static final int SIZE = 4 + 2 + 2 + 7 * 4 + 2 * 8;
+	//Flag: timestamps are stored in seconds instead of milliseconds
+	static final short SECONDS = 1;
+
+	private short version;
+	private short flags;
+	private int commits;
+	private int changes;
+	private int merges;
+	private int authors;
+	private int paths;
+	private int actions;
+	private int labels;
+	private long first;
+	private long last;
+
+	private SnapshotHeader() {
+	}
+
+	/**
+	 * Summary of a log that is written
+	 */
+	static SnapshotHeader of(ColumnarLog log) {
+		SnapshotHeader h = new SnapshotHeader();
+		h.version = VERSION;
+		h.commits = log.size();
+		h.changes = log.getChangeCount();
+		h.authors = log.getAuthors().size();
+		h.paths = log.getPaths().size();
+		h.actions = log.getActions().size();
+		h.labels = log.getLabels().size();
+		h.first = Long.MAX_VALUE;
+		h.last = Long.MIN_VALUE;
+		boolean seconds = true;
+		for (int i = 0; i < log.size(); i++) {
+			long t = log.getTime(i);
+			h.first = Math.min(h.first, t);
+			h.last = Math.max(h.last, t);
+			seconds &= t % 1000 == 0;
+			if (log.getChangeStart(i) == log.getChangeEnd(i))
+				h.merges++;
+		}
+		if (log.size() == 0)
+			h.first = h.last = 0;
+		h.flags = seconds ? SECONDS : 0;
+		return h;
+	}
+
+	void write(ByteBuffer buf) {
+		buf.putInt(MAGIC);
+		buf.putShort(version);
+		buf.putShort(flags);
+		buf.putInt(commits);
+		buf.putInt(changes);
+		buf.putInt(merges);
+		buf.putInt(authors);
+		buf.putInt(paths);
+		buf.putInt(actions);
+		buf.putInt(labels);
+		buf.putLong(first);
+		buf.putLong(last);
+	}
+
+	/**
+	 * @param buf: Buffer that contains at least SIZE bytes
+	 * @throws IOException if the buffer does not start with a snapshot header of a known version
+	 */
+	static SnapshotHeader read(ByteBuffer buf) throws IOException {
+		if (buf.remaining() < SIZE || buf.getInt() != MAGIC)
+			throw new IOException("Not an ActiVCS snapshot");
+		SnapshotHeader h = new SnapshotHeader();
+		h.version = buf.getShort();
+		if (h.version < 1 || h.version > VERSION)
+			throw new IOException("Unsupported snapshot version " + h.version);
+		h.flags = buf.getShort();
+		h.commits = buf.getInt();
+		h.changes = buf.getInt();
+		h.merges = buf.getInt();
+		h.authors = buf.getInt();
+		h.paths = buf.getInt();
+		h.actions = buf.getInt();
+		h.labels = buf.getInt();
+		h.first = buf.getLong();
+		h.last = buf.getLong();
+		return h;
+	}
+
+	boolean hasFlag(short flag) {
+		return (flags & flag) != 0;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public int getCommits() {
+		return commits;
+	}
+
+	public int getChanges() {
+		return changes;
+	}
+
+	/**
+	 * @return number of commits without changes (merges)
+	 */
+	public int getMerges() {
+		return merges;
+	}
+
+	public int getAuthors() {
+		return authors;
+	}
+
+	public int getPaths() {
+		return paths;
+	}
+
+	public int getActions() {
+		return actions;
+	}
+
+	public int getLabels() {
+		return labels;
+	}
+
+	/**
+	 * @return date of the first commit, null if the log is empty
+	 */
+	public DateTime getFirst() {
+		return commits == 0 ? null : new DateTime(first);
+	}
+
+	/**
+	 * @return date of the last commit, null if the log is empty
+	 */
+	public DateTime getLast() {
+		return commits == 0 ? null : new DateTime(last);
+	}
+
+	@Override
+	public String toString() {
+		return "Snapshot [version=" + version + ", commits=" + commits + ", changes=" + changes + ", merges=" + merges
+				+ ", authors=" + authors + ", paths=" + paths + ", first=" + getFirst() + ", last=" + getLast() + "]";
+	}
+}
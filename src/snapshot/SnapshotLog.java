@@ -0,0 +1,409 @@
+package snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import metrics.ActivityCube;
+import metrics.Metrics;
+import metrics.WindowedMetrics;
+import metrics.WorkloadMatrix;
+import model.ColumnarLog;
+import model.LogEntry;
+import model.StringDictionary;
+
+/**
+ * Log of a snapshot file that decodes its commits on first access
+ * Opening the file only reads the header, the dictionaries, the block index and the stored aggregates, the commits
+ * are mapped into memory. A block (the commits of one month, see SnapshotWriter) is decoded into the columns when one
+ * of its commits or changes is accessed, e.g. the commits of a data point are displayed.
+ * The charts and KPIs of the log are restored from the aggregates (getCube, getMetrics, getWindowed), so a saved
+ * analysis is displayed without decoding the commits. Snapshots of version 1 contain no index and no aggregates,
+ * their commits are one block and the aggregates are calculated from the log.
+ * Commits cannot be added to the log.
+ * @author Paul Kneringer
+ */
+public class SnapshotLog extends ColumnarLog {
+	private static final long serialVersionUID = 1L;
+
+	private transient SnapshotHeader header;
+	private transient SnapshotReader.Columns columns;
+	//Commit section of the file, null once all blocks are decoded
+	private transient ByteBuffer data;
+	//Per block: first commit, first change, first byte in data and time of the commit before the block
+	//(in the unit of the file), the arrays contain one more element for the end of the last block
+	private transient int[] blockCommit;
+	private transient int[] blockChange;
+	private transient int[] blockOffset;
+	private transient long[] blockTime;
+	private transient boolean[] decoded;
+	private transient int pending;
+	private transient volatile boolean complete = false;
+
+	private transient ActivityCube cube;
+	private transient WorkloadMatrix matrix;
+	private transient WindowedMetrics windowed;
+
+	private SnapshotLog(SnapshotHeader header, StringDictionary authors, StringDictionary paths,
+			StringDictionary actions, StringDictionary labels, SnapshotReader.Columns columns) {
+		super(authors, paths, actions, labels, header.getCommits(), columns.tokens, columns.comments, columns.times,
+				columns.authorIds, columns.typeIds, columns.changeStart, columns.pathIds, columns.actionIds,
+				columns.labelIds);
+		this.header = header;
+		this.columns = columns;
+		columns.changeStart[header.getCommits()] = header.getChanges();
+	}
+
+	/**
+	 * Opens a snapshot file, the commits are decoded on access
+	 * @throws IOException if the file is not a snapshot
+	 */
+	public static SnapshotLog open(File file) throws IOException {
+		try (SnapshotReader r = new SnapshotReader(file)) {
+			SnapshotHeader header = r.getHeader();
+			StringDictionary authors = r.getDictionary(false);
+			StringDictionary actions = r.getDictionary(false);
+			StringDictionary labels = r.getDictionary(false);
+			StringDictionary paths = r.getDictionary(true);
+			SnapshotLog log = new SnapshotLog(header, authors, paths, actions, labels,
+					new SnapshotReader.Columns(header.getCommits(), header.getChanges()));
+			long start = r.position();
+			long end;
+			if (header.getVersion() >= 2) {
+				r.seek(r.size() - 8);
+				end = r.getLong();
+				if (end < start || end > r.size() - 8)
+					throw new IOException("Malformed block index in snapshot");
+				r.seek(end);
+				log.readIndex(r, end - start);
+				log.readAggregates(r);
+			} else {
+				end = r.size();
+				log.singleBlock(end - start);
+			}
+			if (end - start <= Integer.MAX_VALUE) {
+				log.data = r.map(start, end - start);
+			} else {
+				//Files that cannot be mapped in one piece are decoded completely
+				r.seek(start);
+				if (r.readCommits(0, log.size(), 0, 0, log.columns) != log.getChangeCount())
+					throw new IOException("Snapshot contains less changes than its header");
+				log.finish();
+			}
+			return log;
+		}
+	}
+
+	private void readIndex(SnapshotReader r, long length) throws IOException {
+		int blocks = (int) r.getVarint();
+		allocate(blocks);
+		for (int b = 0; b < blocks; b++) {
+			blockCommit[b + 1] = blockCommit[b] + (int) r.getVarint();
+			blockChange[b + 1] = blockChange[b] + (int) r.getVarint();
+			blockOffset[b + 1] = (int) Math.min(Integer.MAX_VALUE, blockOffset[b] + r.getVarint());
+			blockTime[b] = (b == 0 ? 0 : blockTime[b - 1]) + r.getZigzag();
+		}
+		if (blockCommit[blocks] != size() || blockChange[blocks] != getChangeCount()
+				|| (length <= Integer.MAX_VALUE && blockOffset[blocks] != length))
+			throw new IOException("Block index does not match the snapshot");
+	}
+
+	private void singleBlock(long length) {
+		allocate(size() == 0 ? 0 : 1);
+		if (size() > 0) {
+			blockCommit[1] = size();
+			blockChange[1] = getChangeCount();
+			blockOffset[1] = (int) Math.min(Integer.MAX_VALUE, length);
+		}
+	}
+
+	private void allocate(int blocks) {
+		blockCommit = new int[blocks + 1];
+		blockChange = new int[blocks + 1];
+		blockOffset = new int[blocks + 1];
+		blockTime = new long[blocks + 1];
+		decoded = new boolean[blocks];
+		pending = blocks;
+		complete = blocks == 0;
+	}
+
+	/**
+	 * Restores the cube, the workload matrix and the KPI series if they were stored, the cube and the series only
+	 * if the days were calculated in the same time zone
+	 */
+	private void readAggregates(SnapshotReader r) throws IOException {
+		String zone = r.getString();
+		if (zone == null)
+			return;
+		boolean sameZone = DateTimeZone.getDefault().getID().equals(zone);
+		int nLabels = getLabels().size();
+		int[] commitTypes = getLabelIds(r);
+		int[] fileLabels = getLabelIds(r);
+		int days = (int) r.getVarint();
+		int[][][] counts = new int[2][nLabels][days];
+		for (int[][] level : counts) {
+			for (int[] label : level) {
+				int n = (int) r.getVarint();
+				int d = -1;
+				for (int k = 0; k < n; k++) {
+					d += (int) r.getVarint();
+					if (d < 0 || d >= days)
+						throw new IOException("Malformed counts in snapshot");
+					label[d] = (int) r.getVarint();
+				}
+			}
+		}
+		int[] commitsByDay = new int[size()];
+		int previous = 0;
+		for (int i = 0; i < commitsByDay.length; i++) {
+			previous += (int) r.getZigzag();
+			commitsByDay[i] = previous;
+		}
+		try {
+			if (sameZone)
+				cube = new ActivityCube(this, header.getFirst(), header.getLast(), commitTypes, fileLabels, counts[0],
+						counts[1], commitsByDay);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Malformed counts in snapshot: " + e.getMessage());
+		}
+
+		int[] types = getLabelIds(r);
+		int[][] workload = new int[getAuthors().size()][nLabels];
+		for (int[] row : workload) {
+			int n = (int) r.getVarint();
+			for (int k = 0; k < n; k++) {
+				int t = (int) r.getVarint();
+				if (t >= nLabels)
+					throw new IOException("Malformed workload in snapshot");
+				row[t] = (int) r.getVarint();
+			}
+		}
+		matrix = new WorkloadMatrix(getAuthors().toList(), getLabels().toList(), types, workload);
+
+		int windowDays = (int) r.getVarint();
+		int stepDays = (int) r.getVarint();
+		int n = (int) r.getVarint();
+		List<DateTime> starts = new ArrayList<DateTime>(n);
+		int[] commits = new int[n];
+		int[] NAP = new int[n];
+		double[] PWS = new double[n];
+		double[] RPWS = new double[n];
+		double[] PIS = new double[n];
+		double[] RPIS = new double[n];
+		long start = 0;
+		for (int w = 0; w < n; w++) {
+			start += r.getZigzag();
+			starts.add(new DateTime(start));
+			commits[w] = (int) r.getVarint();
+			NAP[w] = (int) r.getVarint();
+			PWS[w] = r.getDouble();
+			RPWS[w] = r.getDouble();
+			PIS[w] = r.getDouble();
+			RPIS[w] = r.getDouble();
+		}
+		if (sameZone)
+			windowed = new WindowedMetrics(windowDays, stepDays, starts, commits, NAP, PWS, RPWS, PIS, RPIS);
+	}
+
+	private int[] getLabelIds(SnapshotReader r) throws IOException {
+		int[] ids = new int[(int) r.getVarint()];
+		for (int k = 0; k < ids.length; k++) {
+			ids[k] = (int) r.getVarint();
+			if (ids[k] >= getLabels().size())
+				throw new IOException("Malformed label in snapshot");
+		}
+		return ids;
+	}
+
+	public SnapshotHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return Number of blocks the commits are split into
+	 */
+	public int getBlockCount() {
+		return decoded.length;
+	}
+
+	/**
+	 * @return Number of blocks that were decoded so far
+	 */
+	public synchronized int getDecodedBlockCount() {
+		return decoded.length - pending;
+	}
+
+	/**
+	 * @return Activity cube that was stored with the log, calculated from the commits if the snapshot contains none
+	 */
+	public synchronized ActivityCube getCube() {
+		if (cube == null)
+			cube = new ActivityCube(this);
+		return cube;
+	}
+
+	/**
+	 * @return Metrics of the stored workload matrix, calculated from the commits if the snapshot contains none
+	 */
+	public synchronized Metrics getMetrics() {
+		if (matrix == null)
+			matrix = WorkloadMatrix.of(this);
+		return new Metrics(matrix);
+	}
+
+	/**
+	 * @return KPI series that was stored with the log, calculated from the commits if the snapshot contains none
+	 */
+	public synchronized WindowedMetrics getWindowed() {
+		if (windowed == null)
+			windowed = new WindowedMetrics(this);
+		return windowed;
+	}
+
+	/**
+	 * Decodes all blocks that were not decoded yet, e.g. before the whole log is scanned
+	 */
+	public void decodeAll() {
+		for (int b = 0; !complete && b < decoded.length; b++) {
+			decode(b);
+		}
+	}
+
+	/**
+	 * Decodes the block of a commit if necessary
+	 */
+	private void commit(int commit) {
+		if (!complete)
+			decode(block(blockCommit, commit));
+	}
+
+	/**
+	 * Decodes the block of a change if necessary
+	 */
+	private void change(int change) {
+		if (!complete)
+			decode(block(blockChange, change));
+	}
+
+	/**
+	 * @return last block that starts at or before the index, blocks without changes are skipped for changes
+	 */
+	private int block(int[] starts, int index) {
+		int lo = 0;
+		int hi = decoded.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (starts[mid] <= index)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	private synchronized void decode(int block) {
+		if (block >= decoded.length || decoded[block])
+			return;
+		ByteBuffer slice = data.duplicate();
+		slice.limit(blockOffset[block + 1]);
+		slice.position(blockOffset[block]);
+		try {
+			SnapshotReader r = new SnapshotReader(header, slice);
+			int change = r.readCommits(blockCommit[block], blockCommit[block + 1], blockChange[block],
+					blockTime[block], columns);
+			if (change != blockChange[block + 1])
+				throw new IOException("Block contains less changes than the index");
+		} catch (IOException e) {
+			//The index was checked when the file was opened, the file was changed or is corrupt
+			throw new IllegalStateException("Snapshot block " + block + " cannot be decoded", e);
+		}
+		decoded[block] = true;
+		if (--pending == 0)
+			finish();
+	}
+
+	private void finish() {
+		pending = 0;
+		data = null;
+		complete = true;
+	}
+
+	@Override
+	public void add(LogEntry l) {
+		throw new UnsupportedOperationException("Commits cannot be added to a snapshot");
+	}
+
+	/**
+	 * Serializes the decoded columns as ColumnarLog
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		decodeAll();
+		return columns.toLog(getAuthors(), getPaths(), getActions(), getLabels(), size());
+	}
+
+	@Override
+	public long getTime(int commit) {
+		commit(commit);
+		return super.getTime(commit);
+	}
+
+	@Override
+	public int getAuthorId(int commit) {
+		commit(commit);
+		return super.getAuthorId(commit);
+	}
+
+	@Override
+	public int getTypeId(int commit) {
+		commit(commit);
+		return super.getTypeId(commit);
+	}
+
+	@Override
+	public String getToken(int commit) {
+		commit(commit);
+		return super.getToken(commit);
+	}
+
+	@Override
+	public String getComment(int commit) {
+		commit(commit);
+		return super.getComment(commit);
+	}
+
+	@Override
+	public int getChangeStart(int commit) {
+		commit(commit);
+		return super.getChangeStart(commit);
+	}
+
+	@Override
+	public int getChangeEnd(int commit) {
+		commit(commit);
+		return super.getChangeEnd(commit);
+	}
+
+	@Override
+	public int getPathId(int change) {
+		change(change);
+		return super.getPathId(change);
+	}
+
+	@Override
+	public int getActionId(int change) {
+		change(change);
+		return super.getActionId(change);
+	}
+
+	@Override
+	public int getLabelId(int change) {
+		change(change);
+		return super.getLabelId(change);
+	}
+}
@@ -0,0 +1,307 @@
+package snapshot;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import model.ColumnarLog;
+import model.StringDictionary;
+
+/**
+ * Reads a snapshot file (see SnapshotWriter) sequentially into a ColumnarLog
+ * The columns are filled directly, no LogEntry, DateTime or Change objects are created.
+ * SnapshotLog uses the reader to decode single blocks of commits of a mapped file.
+ * @author Paul Kneringer
+ */
+public class SnapshotReader implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private FileChannel channel;
+	private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+	private SnapshotHeader header;
+
+	/**
+	 * Opens the file and reads the header
+	 * @throws IOException if the file is not a snapshot
+	 */
+	public SnapshotReader(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		buf.limit(0);
+		try {
+			fill(SnapshotHeader.SIZE);
+			header = SnapshotHeader.read(buf);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Decodes a part of a file that is already in memory, e.g. one block of commits (see SnapshotLog)
+	 * @param data: Buffer positioned at the first byte, limited to the end of the part
+	 */
+	SnapshotReader(SnapshotHeader header, ByteBuffer data) {
+		this.header = header;
+		buf = data;
+	}
+
+	/**
+	 * Reads a log from a file
+	 */
+	public static ColumnarLog read(File file) throws IOException {
+		try (SnapshotReader r = new SnapshotReader(file)) {
+			return r.read();
+		}
+	}
+
+	/**
+	 * @return true if the file starts with the magic number of a snapshot
+	 */
+	public static boolean isSnapshot(File file) {
+		try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			while (magic.hasRemaining() && ch.read(magic) >= 0)
+				;
+			return !magic.hasRemaining() && magic.getInt(0) == SnapshotHeader.MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public SnapshotHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * Reads the dictionaries and commits of the file
+	 * The block index and the stored aggregates of version 2 files are not needed (see SnapshotLog)
+	 */
+	public ColumnarLog read() throws IOException {
+		StringDictionary authors = getDictionary(false);
+		StringDictionary actions = getDictionary(false);
+		StringDictionary labels = getDictionary(false);
+		StringDictionary paths = getDictionary(true);
+
+		Columns columns = new Columns(header.getCommits(), header.getChanges());
+		if (readCommits(0, header.getCommits(), 0, 0, columns) != header.getChanges())
+			throw new IOException("Snapshot contains less changes than its header");
+		return columns.toLog(authors, paths, actions, labels, header.getCommits());
+	}
+
+	/**
+	 * Commit and change columns of a log that are filled by readCommits
+	 */
+	static class Columns {
+		String[] tokens;
+		String[] comments;
+		long[] times;
+		int[] authorIds;
+		short[] typeIds;
+		int[] changeStart;
+		int[] pathIds;
+		short[] actionIds;
+		short[] labelIds;
+
+		Columns(int commits, int changes) {
+			//Capacity of at least one, so commits can be added to the log afterwards
+			tokens = new String[Math.max(commits, 1)];
+			comments = new String[tokens.length];
+			times = new long[tokens.length];
+			authorIds = new int[tokens.length];
+			typeIds = new short[tokens.length];
+			changeStart = new int[tokens.length + 1];
+			pathIds = new int[Math.max(changes, 1)];
+			actionIds = new short[pathIds.length];
+			labelIds = new short[pathIds.length];
+		}
+
+		ColumnarLog toLog(StringDictionary authors, StringDictionary paths, StringDictionary actions,
+				StringDictionary labels, int commits) {
+			return new ColumnarLog(authors, paths, actions, labels, commits, tokens, comments, times, authorIds,
+					typeIds, changeStart, pathIds, actionIds, labelIds);
+		}
+	}
+
+	/**
+	 * Decodes the commits from (inclusive) to to (exclusive) that start at the current position
+	 * @param change: index of the first change of commit from
+	 * @param time: time of the commit before from in the unit of the file, 0 for the first commit
+	 * @return index after the last change of the decoded commits
+	 */
+	int readCommits(int from, int to, int change, long time, Columns columns) throws IOException {
+		int changes = header.getChanges();
+		long unit = header.hasFlag(SnapshotHeader.SECONDS) ? 1000 : 1;
+		int c = change;
+		columns.changeStart[from] = c;
+		for (int i = from; i < to; i++) {
+			time += getZigzag();
+			columns.times[i] = time * unit;
+			columns.authorIds[i] = (int) getVarint();
+			columns.typeIds[i] = (short) getVarint();
+			int count = (int) getVarint();
+			if (count < 0 || c + count > changes)
+				throw new IOException("Snapshot contains more changes than its header");
+			columns.tokens[i] = getToken();
+			columns.comments[i] = getString();
+			for (int end = c + count; c < end; c++) {
+				columns.pathIds[c] = (int) getVarint();
+				columns.actionIds[c] = (short) getVarint();
+				columns.labelIds[c] = (short) (getVarint() - 1);
+			}
+			columns.changeStart[i + 1] = c;
+		}
+		return c;
+	}
+
+	StringDictionary getDictionary(boolean prefixes) throws IOException {
+		int n = (int) getVarint();
+		StringDictionary dictionary = new StringDictionary();
+		String previous = "";
+		for (int id = 0; id < n; id++) {
+			String value;
+			if (prefixes) {
+				int shared = (int) getVarint();
+				String rest = getString();
+				if (rest == null || shared > previous.length())
+					throw new IOException("Malformed dictionary in snapshot");
+				value = previous.substring(0, shared) + rest;
+				previous = value;
+			} else {
+				value = getString();
+			}
+			dictionary.intern(value);
+		}
+		return dictionary;
+	}
+
+	String getString() throws IOException {
+		int length = (int) getVarint() - 1;
+		if (length < 0)
+			return null;
+		return new String(getBytes(length), StandardCharsets.UTF_8);
+	}
+
+	private String getToken() throws IOException {
+		long tag = getVarint() - 1;
+		if (tag < 0)
+			return null;
+		int length = (int) (tag >>> 1);
+		if ((tag & 1) == 0)
+			return new String(getBytes(length), StandardCharsets.UTF_8);
+		fill(length / 2);
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i += 2) {
+			int b = buf.get() & 0xFF;
+			chars[i] = HEX[b >>> 4];
+			chars[i + 1] = HEX[b & 0xF];
+		}
+		return new String(chars);
+	}
+
+	private byte[] getBytes(int length) throws IOException {
+		byte[] bytes = new byte[length];
+		int off = 0;
+		while (off < length) {
+			if (!buf.hasRemaining())
+				fill(1);
+			int n = Math.min(buf.remaining(), length - off);
+			buf.get(bytes, off, n);
+			off += n;
+		}
+		return bytes;
+	}
+
+	long getZigzag() throws IOException {
+		long v = getVarint();
+		return (v >>> 1) ^ -(v & 1);
+	}
+
+	long getVarint() throws IOException {
+		if (buf.remaining() < 10)
+			fill(Math.min(10, remainingInFile()));
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			if (!buf.hasRemaining())
+				throw new EOFException("Snapshot ends within a number");
+			byte b = buf.get();
+			v |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return v;
+		}
+		throw new IOException("Malformed number in snapshot");
+	}
+
+	double getDouble() throws IOException {
+		fill(8);
+		return buf.getDouble();
+	}
+
+	long getLong() throws IOException {
+		fill(8);
+		return buf.getLong();
+	}
+
+	private int remainingInFile() throws IOException {
+		if (channel == null)
+			return buf.remaining();
+		return (int) Math.min(Integer.MAX_VALUE, buf.remaining() + channel.size() - channel.position());
+	}
+
+	/**
+	 * Reads from the file until at least n bytes are buffered
+	 */
+	private void fill(int n) throws IOException {
+		if (buf.remaining() >= n)
+			return;
+		if (channel == null)
+			throw new EOFException("Snapshot block ends unexpectedly");
+		if (n > buf.capacity())
+			throw new IOException("Malformed snapshot");
+		buf.compact();
+		while (buf.position() < n) {
+			if (channel.read(buf) < 0) {
+				buf.flip();
+				throw new EOFException("Snapshot ends unexpectedly");
+			}
+		}
+		buf.flip();
+	}
+
+	/**
+	 * @return position in the file of the next byte that is decoded
+	 */
+	long position() throws IOException {
+		return channel.position() - buf.remaining();
+	}
+
+	/**
+	 * Continues decoding at a position of the file
+	 */
+	void seek(long position) throws IOException {
+		channel.position(position);
+		buf.limit(0);
+	}
+
+	long size() throws IOException {
+		return channel.size();
+	}
+
+	/**
+	 * Maps a part of the file into memory, the mapping stays valid after the reader is closed
+	 */
+	ByteBuffer map(long position, long length) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null)
+			channel.close();
+	}
+}
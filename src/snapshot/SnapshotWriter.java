@@ -0,0 +1,421 @@
+package snapshot;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import metrics.ActivityCube;
+import metrics.WindowedMetrics;
+import metrics.WorkloadMatrix;
+import model.ColumnarLog;
+import model.StringDictionary;
+
+/**
+ * Writes a log into a snapshot file, replaces the Java serialization of the Log objects
+ * Layout (all numbers big endian, varint = unsigned LEB128, zigzag = signed varint):
+ * - header (SnapshotHeader): magic, version, summary statistics
+ * - dictionaries of the authors, actions, labels and paths: count, then the Strings ordered by their id,
+ * paths share the prefix with the previous path (varint length of the prefix, then the rest)
+ * - commits in the order of the log: time difference to the previous commit (zigzag, in seconds if all times are full
+ * seconds), author id, type id, number of changes, token (hex tokens packed into bytes), comment, then per change
+ * path id, action id and label id + 1 (0 for changes without label)
+ * - block index: the commits are split into blocks of consecutive commits of one month (at most BLOCK_COMMITS),
+ * per block the number of commits, changes and bytes and the time of the commit before the block, so every block
+ * can be decoded on its own (see SnapshotLog)
+ * - aggregates of the log, so the charts and KPIs are displayed without decoding the commits: time zone of the days
+ * (null if the aggregates are left out),
+ * ActivityCube (commit types, file labels, counts per label and day, commits sorted by day), WorkloadMatrix
+ * (commit types, non-zero values per author) and WindowedMetrics (start, commits and KPIs per window)
+ * - position of the block index (8 bytes)
+ * Strings are stored as varint (length + 1) followed by the UTF-8 bytes, 0 stands for null.
+ * The file is written sequentially through one direct buffer.
+ * @author Paul Kneringer
+ */
+public class SnapshotWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+	//Maximum number of commits per block, limits the commits that are decoded for one month of a large project
+	static final int BLOCK_COMMITS = 4096;
+
+	private FileChannel channel;
+	private ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * @param file: File that is created or overwritten
+	 */
+	public SnapshotWriter(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Writes a log into a file, the aggregates are calculated from the log
+	 * The file is replaced once the snapshot is complete (see replace).
+	 */
+	public static void write(ColumnarLog log, File file) throws IOException {
+		replace(file, w -> w.write(log));
+	}
+
+	/**
+	 * Writes a log and its aggregates that were calculated already, e.g. by the GUI, into a file
+	 * The file is replaced once the snapshot is complete (see replace).
+	 */
+	public static void write(ColumnarLog log, ActivityCube cube, WorkloadMatrix matrix, WindowedMetrics windowed,
+			File file) throws IOException {
+		replace(file, w -> w.write(log, cube, matrix, windowed));
+	}
+
+	private interface Content {
+		void write(SnapshotWriter w) throws IOException;
+	}
+
+	/**
+	 * Writes into a temporary file in the directory of the file and moves it over the file afterwards
+	 * The log may be a SnapshotLog of the file itself, its commits are read from the mapped file while the snapshot
+	 * is written. A failed write leaves the file unchanged.
+	 */
+	private static void replace(File file, Content content) throws IOException {
+		File tmp = File.createTempFile(".snapshot-", ".tmp", file.getAbsoluteFile().getParentFile());
+		try {
+			try (SnapshotWriter w = new SnapshotWriter(tmp)) {
+				content.write(w);
+			}
+			try {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+
+	/**
+	 * Writes the log, the writer can only be used for one log
+	 * The aggregates are only stored for enriched logs, the KPIs are not defined for changes without label.
+	 */
+	public void write(ColumnarLog log) throws IOException {
+		for (int c = 0; c < log.getChangeCount(); c++) {
+			if (log.getLabelId(c) == ColumnarLog.NO_LABEL) {
+				write(log, null, null, null);
+				return;
+			}
+		}
+		write(log, new ActivityCube(log), WorkloadMatrix.of(log), new WindowedMetrics(log));
+	}
+
+	/**
+	 * Writes the log and its aggregates, the writer can only be used for one log
+	 * @param cube: Activity cube of the log, the commit indices of the cube must be the indices of the log
+	 * @param matrix: Workload matrix of the log
+	 * @param windowed: KPI series of the log
+	 * The aggregates are left out if one of them is null.
+	 */
+	public void write(ColumnarLog log, ActivityCube cube, WorkloadMatrix matrix, WindowedMetrics windowed)
+			throws IOException {
+		SnapshotHeader header = SnapshotHeader.of(log);
+		ensure(SnapshotHeader.SIZE);
+		header.write(buf);
+		putDictionary(log.getAuthors(), false);
+		putDictionary(log.getActions(), false);
+		putDictionary(log.getLabels(), false);
+		putDictionary(log.getPaths(), true);
+
+		//Blocks: first commit, time of the commit before the block and position of every block
+		int[] blockCommit = new int[16];
+		long[] blockTime = new long[16];
+		long[] blockPosition = new long[16];
+		int blocks = 0;
+		long monthStart = Long.MAX_VALUE;
+		long monthEnd = Long.MIN_VALUE;
+		long unit = header.hasFlag(SnapshotHeader.SECONDS) ? 1000 : 1;
+		long previous = 0;
+		for (int i = 0; i < log.size(); i++) {
+			long t = log.getTime(i);
+			if (t < monthStart || t >= monthEnd || i - blockCommit[blocks - 1] == BLOCK_COMMITS) {
+				if (blocks == blockCommit.length) {
+					blockCommit = Arrays.copyOf(blockCommit, blocks * 2);
+					blockTime = Arrays.copyOf(blockTime, blocks * 2);
+					blockPosition = Arrays.copyOf(blockPosition, blocks * 2);
+				}
+				blockCommit[blocks] = i;
+				blockTime[blocks] = previous;
+				blockPosition[blocks] = position();
+				blocks++;
+				DateTime month = new DateTime(t).withDayOfMonth(1).withTimeAtStartOfDay();
+				monthStart = month.getMillis();
+				monthEnd = month.plusMonths(1).getMillis();
+			}
+			long time = t / unit;
+			putZigzag(time - previous);
+			previous = time;
+			putVarint(log.getAuthorId(i));
+			putVarint(log.getTypeId(i));
+			putVarint(log.getChangeEnd(i) - log.getChangeStart(i));
+			putToken(log.getToken(i));
+			putString(log.getComment(i));
+			for (int c = log.getChangeStart(i); c < log.getChangeEnd(i); c++) {
+				putVarint(log.getPathId(c));
+				putVarint(log.getActionId(c));
+				putVarint(log.getLabelId(c) + 1);
+			}
+		}
+
+		long index = position();
+		putVarint(blocks);
+		for (int b = 0; b < blocks; b++) {
+			int end = b + 1 < blocks ? blockCommit[b + 1] : log.size();
+			putVarint(end - blockCommit[b]);
+			putVarint(log.getChangeEnd(end - 1) - log.getChangeStart(blockCommit[b]));
+			putVarint((b + 1 < blocks ? blockPosition[b + 1] : index) - blockPosition[b]);
+			putZigzag(blockTime[b] - (b == 0 ? 0 : blockTime[b - 1]));
+		}
+		if (cube == null || matrix == null || windowed == null) {
+			putString(null);
+		} else {
+			putString(DateTimeZone.getDefault().getID());
+			putCube(log, cube);
+			putMatrix(log, matrix);
+			putWindowed(windowed);
+		}
+		ensure(8);
+		buf.putLong(index);
+		flush();
+	}
+
+	/**
+	 * Counts per label of the log and day (sparse: number of days with commits, then per day the distance to the
+	 * previous day and the count) and the commits sorted by day (zigzag difference to the previous commit)
+	 */
+	private void putCube(ColumnarLog log, ActivityCube cube) throws IOException {
+		putLabels(log, cube.getTypes(false));
+		putLabels(log, cube.getTypes(true));
+		int days = cube.size();
+		putVarint(days);
+		for (boolean fileLevel : new boolean[] { false, true }) {
+			for (int t = 0; t < log.getLabels().size(); t++) {
+				int label = cube.getLabels().indexOf(log.getLabels().get(t));
+				int[] counts = new int[days];
+				int n = 0;
+				for (int d = 0; label >= 0 && d < days; d++) {
+					counts[d] = cube.count(label, fileLevel, d, d + 1);
+					if (counts[d] > 0)
+						n++;
+				}
+				putVarint(n);
+				int previous = -1;
+				for (int d = 0; d < days; d++) {
+					if (counts[d] > 0) {
+						putVarint(d - previous);
+						putVarint(counts[d]);
+						previous = d;
+					}
+				}
+			}
+		}
+		int previous = 0;
+		for (int commit : cube.getCommits(0, days)) {
+			putZigzag(commit - previous);
+			previous = commit;
+		}
+	}
+
+	/**
+	 * Commit types of the matrix and per author of the log the number of labels with changes, then label id and value
+	 */
+	private void putMatrix(ColumnarLog log, WorkloadMatrix matrix) throws IOException {
+		putLabels(log, matrix.getTypes());
+		HashMap<String, Integer> rows = new HashMap<String, Integer>();
+		for (int a = 0; a < matrix.getAuthors().size(); a++) {
+			rows.put(matrix.getAuthors().get(a), a);
+		}
+		int[] columns = new int[log.getLabels().size()];
+		for (int t = 0; t < columns.length; t++) {
+			columns[t] = matrix.getLabels().indexOf(log.getLabels().get(t));
+		}
+		for (int a = 0; a < log.getAuthors().size(); a++) {
+			Integer row = rows.get(log.getAuthors().get(a));
+			int[] workload = row == null ? new int[0] : matrix.getWorkload()[row];
+			int n = 0;
+			for (int t = 0; t < columns.length; t++) {
+				if (columns[t] >= 0 && columns[t] < workload.length && workload[columns[t]] > 0)
+					n++;
+			}
+			putVarint(n);
+			for (int t = 0; t < columns.length; t++) {
+				if (columns[t] >= 0 && columns[t] < workload.length && workload[columns[t]] > 0) {
+					putVarint(t);
+					putVarint(workload[columns[t]]);
+				}
+			}
+		}
+	}
+
+	private void putWindowed(WindowedMetrics windowed) throws IOException {
+		putVarint(windowed.getWindowDays());
+		putVarint(windowed.getStepDays());
+		putVarint(windowed.size());
+		long previous = 0;
+		for (int w = 0; w < windowed.size(); w++) {
+			long start = windowed.getStart(w).getMillis();
+			putZigzag(start - previous);
+			previous = start;
+			putVarint(windowed.getCommits(w));
+			putVarint(windowed.NAP(w));
+			ensure(4 * 8);
+			buf.putDouble(windowed.PWS(w));
+			buf.putDouble(windowed.RPWS(w));
+			buf.putDouble(windowed.PIS(w));
+			buf.putDouble(windowed.RPIS(w));
+		}
+	}
+
+	/**
+	 * Ids of the labels in the log, labels that are not part of the log are left out
+	 */
+	private void putLabels(ColumnarLog log, List<String> labels) throws IOException {
+		int n = 0;
+		for (String label : labels) {
+			if (log.getLabels().indexOf(label) >= 0)
+				n++;
+		}
+		putVarint(n);
+		for (String label : labels) {
+			if (log.getLabels().indexOf(label) >= 0)
+				putVarint(log.getLabels().indexOf(label));
+		}
+	}
+
+	/**
+	 * @return position in the file of the next byte that is written
+	 */
+	private long position() throws IOException {
+		return channel.position() + buf.position();
+	}
+
+	private void putDictionary(StringDictionary dictionary, boolean prefixes) throws IOException {
+		int n = dictionary.size();
+		putVarint(n);
+		String previous = "";
+		for (int id = 0; id < n; id++) {
+			String value = dictionary.get(id);
+			if (prefixes) {
+				int shared = sharedPrefix(previous, value);
+				putVarint(shared);
+				putString(value.substring(shared));
+				previous = value;
+			} else {
+				putString(value);
+			}
+		}
+	}
+
+	/**
+	 * Length of the common prefix, a surrogate pair is never split
+	 */
+	private static int sharedPrefix(String a, String b) {
+		int n = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < n && a.charAt(i) == b.charAt(i))
+			i++;
+		if (i > 0 && Character.isHighSurrogate(b.charAt(i - 1)))
+			i--;
+		return i;
+	}
+
+	private void putString(String s) throws IOException {
+		if (s == null) {
+			putVarint(0);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		putVarint(bytes.length + 1L);
+		putBytes(bytes);
+	}
+
+	/**
+	 * Tokens (commit hashes) with an even number of lower case hex digits are stored as bytes
+	 * varint 0: null, otherwise (length << 1 | packed) + 1
+	 */
+	private void putToken(String s) throws IOException {
+		if (s == null) {
+			putVarint(0);
+		} else if (isHex(s)) {
+			putVarint(((long) s.length() << 1 | 1) + 1);
+			ensure(s.length() / 2);
+			for (int i = 0; i < s.length(); i += 2) {
+				buf.put((byte) (Character.digit(s.charAt(i), 16) << 4 | Character.digit(s.charAt(i + 1), 16)));
+			}
+		} else {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			putVarint(((long) bytes.length << 1) + 1);
+			putBytes(bytes);
+		}
+	}
+
+	private static boolean isHex(String s) {
+		if (s.length() % 2 != 0 || s.length() > BUFFER_SIZE)
+			return false;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f'))
+				return false;
+		}
+		return true;
+	}
+
+	private void putBytes(byte[] bytes) throws IOException {
+		int off = 0;
+		while (off < bytes.length) {
+			if (!buf.hasRemaining())
+				flush();
+			int n = Math.min(buf.remaining(), bytes.length - off);
+			buf.put(bytes, off, n);
+			off += n;
+		}
+	}
+
+	private void putZigzag(long v) throws IOException {
+		putVarint((v << 1) ^ (v >> 63));
+	}
+
+	private void putVarint(long v) throws IOException {
+		ensure(10);
+		while ((v & ~0x7FL) != 0) {
+			buf.put((byte) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		buf.put((byte) v);
+	}
+
+	private void ensure(int n) throws IOException {
+		if (buf.remaining() < n)
+			flush();
+	}
+
+	private void flush() throws IOException {
+		buf.flip();
+		while (buf.hasRemaining()) {
+			channel.write(buf);
+		}
+		buf.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,73 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import miner.ActivityClassifier;
+import model.ChangeTemplate;
+import model.LogEntry;
+import reader.CSVReader;
+import reader.MappedGITLogReader;
+
+/**
+ * Test routines for the ActivityClassifier class
+ * Ensures, that the indexed and combined rules label every path like the original loop over all regular
+ * expressions, where the last matching category wins
+ * @author Paul Kneringer
+ */
+public class ActivityClassifierTest {
+	@Test
+	public void testBundledPaths() throws IOException {
+		List<String[]> expressions = new CSVReader().readFile("src/data/RegularExpressions.csv");
+		ActivityClassifier classifier = new ActivityClassifier(expressions);
+		List<String> labels = new ArrayList<String>();
+		List<Pattern> patterns = new ArrayList<Pattern>();
+		for (String[] line : expressions) {
+			for (int i = 1; i < line.length; i++) {
+				labels.add(line[0]);
+				patterns.add(Pattern.compile("(?i)^" + line[i] + "$"));
+			}
+		}
+
+		Set<String> paths = new LinkedHashSet<String>();
+		for (String file : new String[] { "retro.log", "jekyll.log", "mp.log", "ok.log" }) {
+			try (MappedGITLogReader lr = new MappedGITLogReader("src/data/logs/" + file)) {
+				for (LogEntry l : lr.readAll()) {
+					for (ChangeTemplate c : l.getChangeList()) {
+						paths.add(c.getPath());
+					}
+				}
+			}
+		}
+		//Paths that several categories match, the last one has to win
+		paths.addAll(Arrays.asList("Java/src/reader/GITLogReaderTest.java", "Java/test/reader/GITLogReader.java",
+				"Java/library/reader/doc.doc", "media/GITLogReader.java", "po/de.po", "doc/images/logo.PNG", ""));
+
+		int overlapping = 0;
+		for (String path : paths) {
+			String expected = "unknown";
+			Set<String> matching = new LinkedHashSet<String>();
+			for (int i = 0; i < patterns.size(); i++) {
+				if (patterns.get(i).matcher(path).find()) {
+					expected = labels.get(i);
+					matching.add(labels.get(i));
+				}
+			}
+			//Every path matches "unknown" of the first line
+			if (matching.size() > 2)
+				overlapping++;
+			assertEquals(expected, classifier.classify(path), path);
+		}
+		assertTrue(overlapping > 0);
+	}
+}
@@ -0,0 +1,166 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+import metrics.ActivityCube;
+import miner.ActivityIdentifier;
+import model.ColumnarLog;
+import model.git.GITLog;
+import reader.MappedGITLogReader;
+
+/**
+ * Test routines for the ActivityCube class
+ * Ensures, that the prefix sums return the same numbers as counting the commits and changes of the log one by one,
+ * for every bucket kind, per author and for the commits of a date range
+ * @author Paul Kneringer
+ */
+public class ActivityCubeTest {
+	private static final int STEPS = 100;
+
+	@Test
+	public void testBuckets() throws IOException {
+		ColumnarLog log = read("src/data/logs/retro.log");
+		ActivityCube cube = new ActivityCube(log);
+		LocalDate first = cube.getFirstDay();
+		int[] day = days(log, first);
+		assertEquals(Arrays.stream(day).max().getAsInt() + 1, cube.size());
+
+		//Buckets of every commit, calculated from its date
+		int[] week = new int[log.size()];
+		int[] month = new int[log.size()];
+		int[] percent = new int[log.size()];
+		LocalDate monday = first.withDayOfWeek(1);
+		double durationDays = (cube.getLast().getMillis() - cube.getFirst().getMillis()) / (24.0 * 60 * 60 * 1000);
+		assertTrue(durationDays >= STEPS);
+		double step = durationDays / STEPS;
+		for (int i = 0; i < log.size(); i++) {
+			LocalDate date = new DateTime(log.getTime(i)).toLocalDate();
+			week[i] = Days.daysBetween(monday, date).getDays() / 7;
+			while (!first.plusMonths(month[i] + 1).isAfter(date)) {
+				month[i]++;
+			}
+			percent[i] = Math.min(STEPS - 1, (int) Math.floor(day[i] / step));
+		}
+
+		for (boolean fileLevel : new boolean[] { false, true }) {
+			for (int label = 0; label < cube.getLabels().size(); label++) {
+				assertArrayEquals(count(log, label, fileLevel, day), cube.counts(label, fileLevel, cube.getDayBuckets()));
+				assertArrayEquals(count(log, label, fileLevel, week), cube.counts(label, fileLevel, cube.getWeekBuckets()));
+				assertArrayEquals(count(log, label, fileLevel, month),
+						cube.counts(label, fileLevel, cube.getMonthBuckets()));
+				assertArrayEquals(count(log, label, fileLevel, percent),
+						cube.counts(label, fileLevel, cube.getPercentBuckets(STEPS)));
+			}
+		}
+	}
+
+	@Test
+	public void testAuthorsAndCommits() throws IOException {
+		ColumnarLog log = read("src/data/logs/retro.log");
+		ActivityCube cube = new ActivityCube(log);
+		int[] day = days(log, cube.getFirstDay());
+		int days = cube.size();
+		int[][] ranges = { { 0, days }, { days / 3, 2 * days / 3 }, { days / 2, days / 2 + 30 }, { -5, 10 } };
+		for (int[] range : ranges) {
+			int from = range[0];
+			int to = range[1];
+			int[][] commits = new int[cube.getAuthors().size()][cube.getLabels().size()];
+			int[][] changes = new int[cube.getAuthors().size()][cube.getLabels().size()];
+			List<Integer> inRange = new ArrayList<Integer>();
+			for (int i = 0; i < log.size(); i++) {
+				if (day[i] < from || day[i] >= to)
+					continue;
+				inRange.add(i);
+				commits[log.getAuthorId(i)][log.getTypeId(i)]++;
+				for (int c = log.getChangeStart(i); c < log.getChangeEnd(i); c++) {
+					changes[log.getAuthorId(i)][log.getLabelId(c)]++;
+				}
+			}
+			for (int a = 0; a < commits.length; a++) {
+				for (int t = 0; t < commits[a].length; t++) {
+					assertEquals(commits[a][t], cube.count(a, t, false, from, to));
+					assertEquals(changes[a][t], cube.count(a, t, true, from, to));
+				}
+			}
+			//Sorted by day, commits of one day in order of the log
+			inRange.sort((x, y) -> day[x] != day[y] ? Integer.compare(day[x], day[y]) : Integer.compare(x, y));
+			int[] expected = new int[inRange.size()];
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = inRange.get(i);
+			}
+			assertArrayEquals(expected, cube.getCommits(from, to));
+		}
+	}
+
+	@Test
+	public void testLegacyLog() throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		GITLog log;
+		try (MappedGITLogReader lr = new MappedGITLogReader("src/data/logs/retro.log")) {
+			log = (GITLog) ai.enrichLog(new GITLog(lr.readAll()));
+		}
+		ActivityCube expected = new ActivityCube(ColumnarLog.of(log));
+		ActivityCube actual = new ActivityCube(log);
+		for (boolean fileLevel : new boolean[] { false, true }) {
+			assertEquals(expected.getTypes(fileLevel), actual.getTypes(fileLevel));
+			assertEquals(expected.curves(fileLevel, expected.getWeekBuckets()),
+					actual.curves(fileLevel, actual.getWeekBuckets()));
+		}
+		assertEquals(expected.getAuthors(), actual.getAuthors());
+	}
+
+	private static ColumnarLog read(String file) throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		try (MappedGITLogReader lr = new MappedGITLogReader(file)) {
+			return ColumnarLog.of(ai.enrichLog(new GITLog(lr.readAll())));
+		}
+	}
+
+	/**
+	 * @return Day of every commit relative to the first day
+	 */
+	private static int[] days(ColumnarLog log, LocalDate first) {
+		int[] day = new int[log.size()];
+		for (int i = 0; i < log.size(); i++) {
+			day[i] = Days.daysBetween(first, new DateTime(log.getTime(i)).toLocalDate()).getDays();
+		}
+		assertEquals(0, Arrays.stream(day).min().getAsInt());
+		return day;
+	}
+
+	/**
+	 * Counts the commits of a type or the changes with a label per bucket
+	 * @param bucket: bucket of every commit
+	 */
+	private static int[] count(ColumnarLog log, int label, boolean fileLevel, int[] bucket) {
+		int buckets = 0;
+		for (int b : bucket) {
+			buckets = Math.max(buckets, b + 1);
+		}
+		int[] ret = new int[buckets];
+		for (int i = 0; i < log.size(); i++) {
+			if (!fileLevel) {
+				if (log.getTypeId(i) == label)
+					ret[bucket[i]]++;
+				continue;
+			}
+			for (int c = log.getChangeStart(i); c < log.getChangeEnd(i); c++) {
+				if (log.getLabelId(c) == label)
+					ret[bucket[i]]++;
+			}
+		}
+		return ret;
+	}
+}
@@ -1,13 +1,24 @@
 package test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import miner.ActivityIdentifier;
 import model.Change;
 import model.ChangeTemplate;
+import model.EnrichedChange;
+import model.LogEntry;
+import model.git.GITLog;
+import reader.MappedGITLogReader;
 
 /**
  * Test routines for the ActivityIdentifier class
- * Ensures, that the regular expressions work as intended
+ * Ensures, that the regular expressions work as intended and that parallel enrichment labels a log like the
+ * sequential one
  * @author Paul Kneringer
  */
 public class ActivityIdentificationTest {
@@ -110,4 +121,33 @@ public class ActivityIdentificationTest {
 		String testS30 = "Java/test/reader/GITLogReader.java";
 		 * **/		
 	}
+
+	@Test
+	public void testParallelEnrichment() throws IOException {
+		for (String file : new String[] { "src/data/logs/retro.log", "src/data/logs/jekyll.log" }) {
+			//Separate identifiers, so the parallel run classifies the paths itself instead of reading the cache
+			List<LogEntry> sequential = new ArrayList<LogEntry>(
+					new ActivityIdentifier("src/data/RegularExpressions.csv").enrichLog(read(file)).getAllEntries());
+			List<LogEntry> parallel = new ArrayList<LogEntry>(
+					new ActivityIdentifier("src/data/RegularExpressions.csv").enrichLog(read(file), true).getAllEntries());
+			assertEquals(sequential.size(), parallel.size());
+			for (int i = 0; i < sequential.size(); i++) {
+				LogEntry s = sequential.get(i);
+				LogEntry p = parallel.get(i);
+				assertEquals(s.getStartingToken(), p.getStartingToken());
+				assertEquals(s.getType(), p.getType());
+				assertEquals(s.getChangeList().size(), p.getChangeList().size());
+				for (int c = 0; c < s.getChangeList().size(); c++) {
+					assertEquals(((EnrichedChange) s.getChangeList().get(c)).getActivityLabel(),
+							((EnrichedChange) p.getChangeList().get(c)).getActivityLabel());
+				}
+			}
+		}
+	}
+
+	private static GITLog read(String file) throws IOException {
+		try (MappedGITLogReader lr = new MappedGITLogReader(file)) {
+			return new GITLog(lr.readAll());
+		}
+	}
 }
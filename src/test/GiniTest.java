@@ -0,0 +1,56 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import metrics.Gini;
+
+/**
+ * Test routines for the primitive overloads of Gini.compute
+ * Ensures, that they return exactly the same values as the generic implementation
+ * @author Paul Kneringer
+ */
+public class GiniTest {
+	@Test
+	public void testPrimitiveOverloads() {
+		Random random = new Random(42);
+		for (int run = 0; run < 500; run++) {
+			int n = random.nextInt(200);
+			//Alternating small ranges (counting sort) and large ranges
+			int bound = run % 2 == 0 ? 10 : 1000000;
+			int[] ints = new int[n];
+			Integer[] boxedInts = new Integer[n];
+			long[] longs = new long[n];
+			Long[] boxedLongs = new Long[n];
+			double[] doubles = new double[n];
+			Double[] boxedDoubles = new Double[n];
+			for (int i = 0; i < n; i++) {
+				ints[i] = random.nextInt(bound);
+				boxedInts[i] = ints[i];
+				longs[i] = ints[i] * 100000L;
+				boxedLongs[i] = longs[i];
+				doubles[i] = ints[i] == 0 ? 0.0 : random.nextDouble();
+				boxedDoubles[i] = doubles[i];
+			}
+			for (boolean countZeros : new boolean[] { false, true }) {
+				assertEquals(Gini.compute(boxedInts, countZeros), Gini.compute(ints.clone(), countZeros));
+				assertEquals(Gini.compute(boxedLongs, countZeros), Gini.compute(longs.clone(), countZeros));
+				assertEquals(Gini.compute(boxedDoubles, countZeros), Gini.compute(doubles.clone(), countZeros));
+			}
+		}
+	}
+
+	@Test
+	public void testSpecialCases() {
+		assertEquals(Double.NaN, Gini.compute(new int[0], false));
+		assertEquals(Double.NaN, Gini.compute(new int[] { 0, 0 }, false));
+		assertEquals(0.0, Gini.compute(new int[] { 5, 5, 5 }, false));
+		int[] values = { 3, 0, 1 };
+		Gini.compute(values, false);
+		assertEquals(0, values[0]);
+		assertEquals(3, values[2]);
+	}
+}
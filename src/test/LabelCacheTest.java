@@ -0,0 +1,111 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import miner.ActivityIdentifier;
+import miner.LabelCache;
+import model.Change;
+import model.ChangeTemplate;
+import model.EnrichedChange;
+import model.LogEntry;
+import model.git.GITLog;
+import model.git.GITLogEntry;
+
+/**
+ * Test routines for the LabelCache class and the reload of the regular expressions
+ * Ensures, that the cache stays within its size and counts its lookups, and that no cached label survives a
+ * change of the csv file
+ * @author Paul Kneringer
+ */
+public class LabelCacheTest {
+	@Test
+	public void testEviction() {
+		LabelCache cache = new LabelCache(8);
+		for (int i = 0; i < 8; i++) {
+			cache.put("file" + i, "code");
+		}
+		assertEquals(8, cache.size());
+		//The ninth path exceeds the maximum size, the cache shrinks to three quarters of it
+		cache.put("file8", "code");
+		assertEquals(6, cache.size());
+		int stored = 0;
+		for (int i = 0; i <= 8; i++) {
+			String label = cache.get("file" + i);
+			if (label != null) {
+				assertEquals("code", label);
+				stored++;
+			}
+		}
+		assertEquals(6, stored);
+	}
+
+	@Test
+	public void testCounters() {
+		LabelCache cache = new LabelCache(8);
+		assertEquals(0.0, cache.getHitRate());
+		assertNull(cache.get("README"));
+		cache.put("README", "doc");
+		assertEquals("doc", cache.get("README"));
+		assertEquals("doc", cache.get("README"));
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(2.0 / 3.0, cache.getHitRate());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getMisses());
+	}
+
+	@Test
+	public void testReloadIfChanged() throws IOException {
+		List<String> lines = Files.readAllLines(Paths.get("src/data/RegularExpressions.csv"), StandardCharsets.UTF_8);
+		File csv = File.createTempFile("expressions", ".csv");
+		csv.deleteOnExit();
+		Files.write(csv.toPath(), lines, StandardCharsets.UTF_8);
+		long modified = csv.lastModified();
+
+		ActivityIdentifier ai = new ActivityIdentifier(csv.getPath());
+		ChangeTemplate c = new Change("A", "src/model.xyz");
+		assertEquals("unknown", ai.identifyActivityLabel(c).getActivityLabel());
+		assertEquals("unknown", ai.identifyActivityLabel(c).getActivityLabel());
+		assertEquals(1, ai.getCache().getHits());
+		assertFalse(ai.reloadIfChanged());
+
+		//A new line changes the length of the file, enrichLog reloads the rules by itself
+		List<String> edited = new ArrayList<String>(lines);
+		edited.add("code,.*\\.xyz");
+		Files.write(csv.toPath(), edited, StandardCharsets.UTF_8);
+		csv.setLastModified(modified);
+		LabelCache before = ai.getCache();
+		List<ChangeTemplate> changes = new ArrayList<ChangeTemplate>(Arrays.asList(c));
+		LogEntry entry = new GITLogEntry("1", "Jane Doe", new DateTime(0), "", changes);
+		ai.enrichLog(new GITLog(new ArrayList<LogEntry>(Arrays.asList(entry))));
+		assertEquals("code", ((EnrichedChange) entry.getChangeList().get(0)).getActivityLabel());
+		assertNotSame(before, ai.getCache());
+		assertEquals(0, ai.getCache().getHits());
+		assertFalse(ai.reloadIfChanged());
+
+		//A file of the same length is detected by its modification time
+		edited.set(edited.size() - 1, "test,.*\\.xyz");
+		Files.write(csv.toPath(), edited, StandardCharsets.UTF_8);
+		csv.setLastModified(modified + 10000);
+		assertTrue(ai.reloadIfChanged());
+		assertEquals("test", ai.identifyActivityLabel(c).getActivityLabel());
+	}
+}
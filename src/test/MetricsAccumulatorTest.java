@@ -0,0 +1,111 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import metrics.Metrics;
+import metrics.MetricsAccumulator;
+import metrics.WorkloadMatrix;
+import miner.ActivityIdentifier;
+import model.ColumnarLog;
+import model.LogEntry;
+import model.git.GITLog;
+import reader.MappedGITLogReader;
+
+/**
+ * Test routines for the MetricsAccumulator class
+ * Ensures, that accumulators of parts of a log combine into the matrix of the whole log and that removed commits
+ * leave the counts as they were before the commits were accepted
+ * @author Paul Kneringer
+ */
+public class MetricsAccumulatorTest {
+	@Test
+	public void testCombine() throws IOException {
+		ColumnarLog log = read("src/data/logs/retro.log");
+		List<LogEntry> entries = new ArrayList<LogEntry>(log.getAllEntries());
+		int half = log.size() / 2;
+		MetricsAccumulator first = new MetricsAccumulator();
+		MetricsAccumulator second = new MetricsAccumulator();
+		for (int i = 0; i < log.size(); i++) {
+			(i < half ? first : second).accept(entries.get(i));
+		}
+		first.combine(second);
+		WorkloadMatrix expected = WorkloadMatrix.of(log);
+		assertEquals(log.size(), first.getCommits());
+		assertSameMatrix(expected, first.snapshot());
+		assertSameMatrix(expected, new Metrics(entries.parallelStream()).getMatrix());
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		ColumnarLog log = read("src/data/logs/retro.log");
+		List<LogEntry> entries = new ArrayList<LogEntry>(log.getAllEntries());
+		int from = log.size() / 3;
+		int to = 2 * log.size() / 3;
+		MetricsAccumulator objects = new MetricsAccumulator();
+		MetricsAccumulator columns = new MetricsAccumulator();
+		for (int i = 0; i < from; i++) {
+			objects.accept(entries.get(i));
+			columns.accept(log, i);
+		}
+		WorkloadMatrix before = objects.snapshot();
+		assertSameMatrix(before, columns.snapshot());
+		for (int i = from; i < to; i++) {
+			objects.accept(entries.get(i));
+			columns.accept(log, i);
+		}
+		//Some authors only committed in the removed range, their counts drop to zero
+		assertTrue(objects.NAP() > before.NAP());
+		for (int i = from; i < to; i++) {
+			objects.remove(entries.get(i));
+			columns.remove(log, i);
+		}
+		assertEquals(from, objects.getCommits());
+		assertEquals(before.NAP(), objects.NAP());
+		assertEquals(before.NTP(), objects.NTP());
+		assertEquals(before.PWS(), objects.PWS());
+		assertEquals(before.RPIS(), objects.RPIS());
+		assertSameMatrix(before, objects.snapshot());
+		assertSameMatrix(before, columns.snapshot());
+	}
+
+	private static ColumnarLog read(String file) throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		try (MappedGITLogReader lr = new MappedGITLogReader(file)) {
+			return ColumnarLog.of(ai.enrichLog(new GITLog(lr.readAll())));
+		}
+	}
+
+	/**
+	 * Compares two matrices by the names of their rows and columns
+	 * Labels that only appear in removed commits remain as empty columns, so the label lists may differ.
+	 */
+	private static void assertSameMatrix(WorkloadMatrix expected, WorkloadMatrix actual) {
+		assertEquals(expected.getAuthors(), actual.getAuthors());
+		assertEquals(expected.getTypes(), actual.getTypes());
+		assertEquals(expected.PW(), actual.PW());
+		assertEquals(expected.NAP(), actual.NAP());
+		assertEquals(expected.NTP(), actual.NTP());
+		assertEquals(expected.PWS(), actual.PWS());
+		assertEquals(expected.RPWS(), actual.RPWS());
+		assertEquals(expected.PIS(), actual.PIS());
+		assertEquals(expected.RPIS(), actual.RPIS());
+		Set<String> labels = new LinkedHashSet<String>(expected.getLabels());
+		labels.addAll(actual.getLabels());
+		for (String label : labels) {
+			assertEquals(expected.PTW(label), actual.PTW(label), label);
+			assertEquals(expected.PTI(label), actual.PTI(label), label);
+			for (String author : expected.getAuthors()) {
+				assertEquals(expected.ATPW(author, label), actual.ATPW(author, label), author);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import metrics.Metrics;
+import miner.ActivityIdentifier;
+import model.ChangeTemplate;
+import model.ColumnarLog;
+import model.EnrichedChange;
+import model.LogEntry;
+import model.git.GITLog;
+import reader.MappedGITLogReader;
+
+/**
+ * Test routines for the Metrics class
+ * Ensures, that the KPIs derived from the workload matrix equal the KPIs of the ATW map methods
+ * @author Paul Kneringer
+ */
+public class MetricsTest {
+	@Test
+	public void testMatrixEqualsATW() throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		for (String file : new String[] { "src/data/logs/retro.log", "src/data/logs/mp.log" }) {
+			ColumnarLog log;
+			try (MappedGITLogReader lr = new MappedGITLogReader(file)) {
+				log = ColumnarLog.of(ai.enrichLog(new GITLog(lr.readAll())));
+			}
+			Metrics m = new Metrics(log);
+			HashMap<String, HashMap<String, Integer>> ATW = countATW(log);
+			assertEquals(ATW, m.getATW());
+			//The ATW methods take the commit types and authors from the matrix as well
+			List<String> types = new ArrayList<String>();
+			Set<String> authors = new HashSet<String>();
+			for (LogEntry l : log.getAllEntries()) {
+				if (!types.contains(l.getType()))
+					types.add(l.getType());
+				authors.add(l.getAuthor());
+			}
+			assertEquals(types, m.getMatrix().getTypes());
+			assertEquals(types.size(), m.NTP());
+			assertEquals(authors.size(), m.NAP());
+			assertEquals(m.PW(ATW), m.PW());
+			for (String type : m.getMatrix().getLabels()) {
+				assertEquals(m.PTW(type, ATW), m.PTW(type), type);
+				assertEquals(m.RPTW(type, ATW), m.RPTW(type), type);
+				assertEquals(m.PTI(type, ATW), m.PTI(type), type);
+				assertEquals(m.RPTI(type, ATW), m.RPTI(type), type);
+				for (String author : m.getMatrix().getAuthors()) {
+					assertEquals(m.ATPW(author, type, ATW), m.getMatrix().ATPW(author, type));
+				}
+			}
+			assertEquals(m.PWS(ATW), m.PWS());
+			assertEquals(m.RPWS(ATW), m.RPWS());
+			assertEquals(m.PIS(ATW), m.PIS());
+			assertEquals(m.RPIS(ATW), m.RPIS());
+		}
+	}
+
+	/**
+	 * Counts the file changes per author and label like the original getATW did
+	 */
+	private static HashMap<String, HashMap<String, Integer>> countATW(ColumnarLog log) {
+		HashMap<String, HashMap<String, Integer>> ATW = new HashMap<String, HashMap<String, Integer>>();
+		for (LogEntry l : log.getAllEntries()) {
+			for (ChangeTemplate c : l.getChangeList()) {
+				String type = ((EnrichedChange) c).getActivityLabel();
+				HashMap<String, Integer> innerList = ATW.get(l.getAuthor());
+				if (innerList == null) {
+					innerList = new HashMap<String, Integer>();
+					ATW.put(l.getAuthor(), innerList);
+				}
+				Integer count = innerList.get(type);
+				innerList.put(type, count == null ? 1 : count + 1);
+			}
+		}
+		return ATW;
+	}
+}
@@ -0,0 +1,203 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import model.ChangeTemplate;
+import model.LogEntry;
+import reader.GITLogReader;
+import reader.MappedGITLogReader;
+import reader.ParallelGITLogReader;
+
+/**
+ * Test routines for the log readers
+ * Ensures, that the memory mapped reader reads the same commits as the original GITLogReader and handles the
+ * cases where it deliberately differs from it, and that the parallel reader and its spliterator agree with it
+ * @author Paul Kneringer
+ */
+public class ReaderTest {
+	private static final String EMPTY_COMMIT = "commit 1111111111111111111111111111111111111111\n"
+			+ "Author: Jane Doe <jane@example.com>\n"
+			+ "Date:   Mon Jan 1 10:00:00 2018 +0100\n"
+			+ "\n"
+			+ "    Empty commit\n"
+			+ "\n"
+			+ "commit 2222222222222222222222222222222222222222\n"
+			+ "Author: John Doe <john@example.com>\n"
+			+ "Date:   Tue Jan 2 11:30:00 2018 -0500\n"
+			+ "\n"
+			+ "    Add the readme\n"
+			+ "\n"
+			+ "A\tREADME.md\n"
+			+ "M\tsrc/Main.java\n"
+			+ "\n";
+
+	private static final String PARAGRAPHS = "commit 3333333333333333333333333333333333333333\n"
+			+ "Author: Jane Doe <jane@example.com>\n"
+			+ "Date:   Wed Jan 3 09:15:00 2018 +0000\n"
+			+ "\n"
+			+ "    Summary line\n"
+			+ "\n"
+			+ "    Body of the message\n"
+			+ "\n"
+			+ "    commit is mentioned here\n"
+			+ "\n"
+			+ "D\told.txt\n"
+			+ "A\tnew.txt\n"
+			+ "\n";
+
+	@Test
+	public void testBundledLog() throws IOException {
+		List<LogEntry> expected;
+		try (GITLogReader lr = new GITLogReader("src/data/logs/retro.log")) {
+			expected = lr.readAll();
+		}
+		List<LogEntry> actual = readMapped(new File("src/data/logs/retro.log"));
+		//GITLogReader decodes with the platform charset, the mapped reader with UTF-8, so only the structure is compared
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			LogEntry e = expected.get(i);
+			LogEntry a = actual.get(i);
+			assertEquals(e.getStartingToken(), a.getStartingToken());
+			assertEquals(e.getDate().getMillis(), a.getDate().getMillis());
+			assertEquals(e.getChangeList().size(), a.getChangeList().size());
+			for (int c = 0; c < e.getChangeList().size(); c++) {
+				assertEquals(e.getChangeList().get(c).getAction(), a.getChangeList().get(c).getAction());
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyCommit() throws IOException {
+		//GITLogReader skips the commit that follows an empty commit, the mapped reader keeps it
+		List<LogEntry> entries = readMapped(write(EMPTY_COMMIT));
+		assertEquals(2, entries.size());
+		assertEquals("1111111111111111111111111111111111111111", entries.get(0).getStartingToken());
+		assertEquals("Empty commit", entries.get(0).getComment());
+		assertEquals(0, entries.get(0).getChangeList().size());
+		LogEntry second = entries.get(1);
+		assertEquals("2222222222222222222222222222222222222222", second.getStartingToken());
+		assertEquals("John Doe <john@example.com>", second.getAuthor());
+		assertEquals("Add the readme", second.getComment());
+		assertEquals(2, second.getChangeList().size());
+		assertEquals("A", second.getChangeList().get(0).getAction());
+		assertEquals("README.md", second.getChangeList().get(0).getPath());
+		assertEquals("M", second.getChangeList().get(1).getAction());
+		assertEquals("src/Main.java", second.getChangeList().get(1).getPath());
+	}
+
+	@Test
+	public void testBlankLinesInMessage() throws IOException {
+		List<LogEntry> entries = readMapped(write(PARAGRAPHS));
+		assertEquals(1, entries.size());
+		LogEntry entry = entries.get(0);
+		assertEquals("Summary line    Body of the message    commit is mentioned here", entry.getComment());
+		assertEquals(2, entry.getChangeList().size());
+		assertEquals("D", entry.getChangeList().get(0).getAction());
+		assertEquals("old.txt", entry.getChangeList().get(0).getPath());
+		assertEquals("A", entry.getChangeList().get(1).getAction());
+		assertEquals("new.txt", entry.getChangeList().get(1).getPath());
+	}
+
+	@Test
+	public void testCRLF() throws IOException {
+		String log = EMPTY_COMMIT + PARAGRAPHS;
+		List<LogEntry> expected = readMapped(write(log));
+		assertEquals(3, expected.size());
+		assertSameEntries(expected, readMapped(write(log.replace("\n", "\r\n"))));
+	}
+
+	@Test
+	public void testParallelReaders() throws IOException {
+		assertParallelAgrees(new File("src/data/logs/retro.log"));
+		assertParallelAgrees(new File("src/data/logs/jekyll.log"));
+		assertParallelAgrees(write((EMPTY_COMMIT + PARAGRAPHS).replace("\n", "\r\n")));
+	}
+
+	@Test
+	public void testChunkBoundary() throws IOException {
+		//The commits have equal length, with one thread a log of 2 to 3 MB is split into two chunks at half of its size.
+		//Without padding the split offset is the 'c' of a commit header, with two bytes it is the line break before it.
+		for (int padding : new int[] { 0, 2 }) {
+			StringBuilder log = new StringBuilder();
+			int count = 16000;
+			for (int i = 0; i < count; i++) {
+				log.append(String.format("commit %040x\n", i));
+				log.append("Author: Jane Doe <jane@example.com>\n");
+				log.append("Date:   Mon Jan 1 10:00:00 2018 +0100\n\n");
+				log.append(String.format("    Change %05d", i));
+				if (i == 0)
+					log.append("  ".substring(0, padding));
+				log.append(String.format("\n\nM\tsrc/File%05d.java\n\n", i));
+			}
+			File file = write(log.toString());
+			assertEquals(count, readMapped(file).size());
+			assertParallelAgrees(file);
+		}
+	}
+
+	/**
+	 * Compares the mapped reader with the chunks of the parallel reader and with its spliterator
+	 */
+	private static void assertParallelAgrees(File file) throws IOException {
+		List<LogEntry> expected = readMapped(file);
+		ForkJoinPool pool = new ForkJoinPool(1);
+		try (ParallelGITLogReader lr = new ParallelGITLogReader(file.getPath(), pool)) {
+			assertSameEntries(expected, lr.readAll());
+			//The stream of the reader runs in its pool
+			assertSameEntries(expected, lr.stream(s -> s.peek(l -> {
+				assertTrue(Thread.currentThread() instanceof ForkJoinWorkerThread);
+				assertSame(pool, ((ForkJoinWorkerThread) Thread.currentThread()).getPool());
+			}).collect(Collectors.toList())));
+		} finally {
+			pool.shutdown();
+		}
+		try (ParallelGITLogReader lr = new ParallelGITLogReader(file.getPath())) {
+			assertSameEntries(expected, lr.stream().collect(Collectors.toList()));
+		}
+	}
+
+	private static List<LogEntry> readMapped(File file) throws IOException {
+		try (MappedGITLogReader lr = new MappedGITLogReader(file.getPath())) {
+			return lr.readAll();
+		}
+	}
+
+	private static File write(String log) throws IOException {
+		File file = File.createTempFile("reader", ".log");
+		file.deleteOnExit();
+		Files.write(file.toPath(), log.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static void assertSameEntries(List<LogEntry> expected, List<LogEntry> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			LogEntry e = expected.get(i);
+			LogEntry a = actual.get(i);
+			assertEquals(e.getStartingToken(), a.getStartingToken());
+			assertEquals(e.getAuthor(), a.getAuthor());
+			assertEquals(e.getDate().getMillis(), a.getDate().getMillis());
+			assertEquals(e.getComment(), a.getComment());
+			assertEquals(e.getChangeList().size(), a.getChangeList().size());
+			for (int c = 0; c < e.getChangeList().size(); c++) {
+				ChangeTemplate ec = e.getChangeList().get(c);
+				ChangeTemplate ac = a.getChangeList().get(c);
+				assertEquals(ec.getAction(), ac.getAction());
+				assertEquals(ec.getPath(), ac.getPath());
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import miner.ActivityIdentifier;
+import model.ColumnarLog;
+import model.EnrichedChange;
+import model.Log;
+import model.LogEntry;
+import model.git.GITLog;
+import reader.GITLogReader;
+
+/**
+ * Test routines for logs that were saved with Java serialization
+ * retro-baseline.ser contains the first 40 commits of retro.log, enriched and serialized by the version before
+ * the ids were added to the model classes
+ * @author Paul Kneringer
+ */
+public class SerializationTest {
+	@Test
+	public void testBaselineLog() throws IOException, ClassNotFoundException {
+		ColumnarLog read;
+		try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream("src/data/logs/retro-baseline.ser"))) {
+			read = ColumnarLog.of((Log) ois.readObject());
+		}
+		List<LogEntry> entries;
+		try (GITLogReader lr = new GITLogReader("src/data/logs/retro.log")) {
+			entries = lr.readAll();
+		}
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		ColumnarLog log = ColumnarLog.of(ai.enrichLog(new GITLog(new ArrayList<LogEntry>(entries.subList(0, 40)))));
+		assertEquals(log.size(), read.size());
+		for (int i = 0; i < log.size(); i++) {
+			LogEntry expected = log.getEntry(i);
+			LogEntry actual = read.getEntry(i);
+			assertEquals(expected.getStartingToken(), actual.getStartingToken());
+			assertEquals(expected.getAuthor(), actual.getAuthor());
+			assertEquals(expected.getDate().getMillis(), actual.getDate().getMillis());
+			assertEquals(expected.getType(), actual.getType());
+			assertEquals(expected.getChangeList().size(), actual.getChangeList().size());
+			for (int c = 0; c < expected.getChangeList().size(); c++) {
+				EnrichedChange e = (EnrichedChange) expected.getChangeList().get(c);
+				EnrichedChange a = (EnrichedChange) actual.getChangeList().get(c);
+				assertEquals(e.getAction(), a.getAction());
+				assertEquals(e.getPath(), a.getPath());
+				assertEquals(e.getActivityLabel(), a.getActivityLabel());
+				assertEquals(e.getActivityLabelId(), a.getActivityLabelId());
+			}
+		}
+	}
+}
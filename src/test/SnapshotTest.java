@@ -0,0 +1,160 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import metrics.ActivityCube;
+import metrics.Metrics;
+import metrics.WindowedMetrics;
+import miner.ActivityIdentifier;
+import model.Change;
+import model.ChangeTemplate;
+import model.ColumnarLog;
+import model.EnrichedChange;
+import model.LogEntry;
+import model.git.GITLog;
+import model.git.GITLogEntry;
+import reader.MappedGITLogReader;
+import snapshot.SnapshotLog;
+import snapshot.SnapshotReader;
+import snapshot.SnapshotWriter;
+
+/**
+ * Test routines for the snapshot format
+ * Ensures, that a log is read back from a snapshot exactly as it was written, completely or block by block
+ * @author Paul Kneringer
+ */
+public class SnapshotTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		try (MappedGITLogReader lr = new MappedGITLogReader("src/data/logs/retro.log")) {
+			assertRoundTrip(ColumnarLog.of(ai.enrichLog(new GITLog(lr.readAll()))));
+		}
+	}
+
+	@Test
+	public void testLazyAggregates() throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		ColumnarLog log;
+		try (MappedGITLogReader lr = new MappedGITLogReader("src/data/logs/retro.log")) {
+			log = ColumnarLog.of(ai.enrichLog(new GITLog(lr.readAll())));
+		}
+		File file = File.createTempFile("snapshot", ".avcs");
+		file.deleteOnExit();
+		SnapshotWriter.write(log, file);
+		SnapshotLog lazy = SnapshotLog.open(file);
+		ActivityCube expected = new ActivityCube(log);
+		ActivityCube actual = lazy.getCube();
+		Metrics metrics = new Metrics(log);
+		WindowedMetrics windowed = new WindowedMetrics(log);
+		for (boolean fileLevel : new boolean[] { false, true }) {
+			assertEquals(expected.curves(fileLevel, expected.getWeekBuckets()),
+					actual.curves(fileLevel, actual.getWeekBuckets()));
+		}
+		assertEquals(metrics.getATW(), lazy.getMetrics().getATW());
+		assertEquals(metrics.PWS(), lazy.getMetrics().PWS());
+		assertEquals(windowed.size(), lazy.getWindowed().size());
+		for (int w = 0; w < windowed.size(); w++) {
+			assertEquals(windowed.getStart(w), lazy.getWindowed().getStart(w));
+			assertEquals(windowed.RPIS(w), lazy.getWindowed().RPIS(w));
+		}
+		//The charts are restored without decoding, a date range only decodes its blocks
+		assertEquals(0, lazy.getDecodedBlockCount());
+		int[] commits = actual.getCommits(0, 7);
+		assertArrayEquals(expected.getCommits(0, 7), commits);
+		for (int i : commits) {
+			assertEquals(log.getEntry(i).getStartingToken(), lazy.getEntry(i).getStartingToken());
+		}
+		assertTrue(lazy.getDecodedBlockCount() < lazy.getBlockCount());
+		assertEquals(expected.count(0, 0, true, 0, expected.size()), actual.count(0, 0, true, 0, actual.size()));
+		file.delete();
+	}
+
+	@Test
+	public void testRewriteInPlace() throws IOException {
+		ActivityIdentifier ai = new ActivityIdentifier("src/data/RegularExpressions.csv");
+		ColumnarLog log;
+		try (MappedGITLogReader lr = new MappedGITLogReader("src/data/logs/retro.log")) {
+			log = ColumnarLog.of(ai.enrichLog(new GITLog(lr.readAll())));
+		}
+		File file = File.createTempFile("snapshot", ".avcs");
+		file.deleteOnExit();
+		SnapshotWriter.write(log, file);
+		//The commits of the opened snapshot are decoded from the file while it is replaced
+		SnapshotLog lazy = SnapshotLog.open(file);
+		assertEquals(0, lazy.getDecodedBlockCount());
+		SnapshotWriter.write(lazy, lazy.getCube(), lazy.getMetrics().getMatrix(), lazy.getWindowed(), file);
+		assertSameLog(log, SnapshotReader.read(file));
+		assertSameLog(log, SnapshotLog.open(file));
+		file.delete();
+	}
+
+	@Test
+	public void testSpecialValues() throws IOException {
+		List<ChangeTemplate> changes = new ArrayList<ChangeTemplate>();
+		changes.add(new EnrichedChange("A", "src/\u00e4\ud83d\ude00/Main.java", "code"));
+		changes.add(new Change("M", "src/\u00e4\ud83d\ude01/README"));
+		ColumnarLog log = new ColumnarLog();
+		//Tokens that are no hex hashes, times with milliseconds and before 1970, commits without changes
+		log.add(new GITLogEntry("r1234", "author", new DateTime(1234567L), "first\nline", changes));
+		log.add(new GITLogEntry("abc", "\u00f6", new DateTime(-5000L), "", new ArrayList<ChangeTemplate>()));
+		log.add(new GITLogEntry("00ff", "author", new DateTime(1234000L), "merge", changes.subList(1, 2)));
+		assertRoundTrip(log);
+		assertRoundTrip(new ColumnarLog());
+	}
+
+	@Test
+	public void testNoSnapshot() throws IOException {
+		File file = File.createTempFile("snapshot", ".log");
+		file.deleteOnExit();
+		Files.write(file.toPath(), Arrays.asList("commit 1234"));
+		assertFalse(SnapshotReader.isSnapshot(file));
+	}
+
+	private void assertRoundTrip(ColumnarLog log) throws IOException {
+		File file = File.createTempFile("snapshot", ".avcs");
+		file.deleteOnExit();
+		SnapshotWriter.write(log, file);
+		assertTrue(SnapshotReader.isSnapshot(file));
+		assertSameLog(log, SnapshotReader.read(file));
+		assertSameLog(log, SnapshotLog.open(file));
+		file.delete();
+	}
+
+	private void assertSameLog(ColumnarLog log, ColumnarLog read) {
+		assertEquals(log.size(), read.size());
+		assertEquals(log.getChangeCount(), read.getChangeCount());
+		for (int i = 0; i < log.size(); i++) {
+			LogEntry expected = log.getEntry(i);
+			LogEntry actual = read.getEntry(i);
+			assertEquals(expected.getStartingToken(), actual.getStartingToken());
+			assertEquals(expected.getAuthor(), actual.getAuthor());
+			assertEquals(expected.getDate().getMillis(), actual.getDate().getMillis());
+			assertEquals(expected.getComment(), actual.getComment());
+			assertEquals(expected.getType(), actual.getType());
+			assertEquals(expected.getChangeList().size(), actual.getChangeList().size());
+			for (int c = 0; c < expected.getChangeList().size(); c++) {
+				ChangeTemplate e = expected.getChangeList().get(c);
+				ChangeTemplate a = actual.getChangeList().get(c);
+				assertEquals(e.getClass(), a.getClass());
+				assertEquals(e.getAction(), a.getAction());
+				assertEquals(e.getPath(), a.getPath());
+				if (e instanceof EnrichedChange)
+					assertEquals(((EnrichedChange) e).getActivityLabel(), ((EnrichedChange) a).getActivityLabel());
+			}
+		}
+	}
+}